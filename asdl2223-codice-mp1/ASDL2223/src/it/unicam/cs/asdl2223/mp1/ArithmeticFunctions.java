@@ -0,0 +1,147 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Calcolo in blocco delle principali funzioni aritmetiche moltiplicative su
+ * tutti i numeri da 1 a n: la funzione phi di Eulero, il numero dei divisori,
+ * la somma dei divisori e la funzione di Möbius. Ogni metodo restituisce una
+ * tabella in cui la posizione k contiene il valore della funzione in k, per cui
+ * dopo il calcolo ogni valore si legge in tempo costante. La posizione 0 non è
+ * significativa e vale 0.
+ * <p>
+ * Le tabelle vengono riempite scorrendo i numeri primi di un
+ * {@link CrivelloDiEratostene} e, per ogni primo p, tutti i suoi multipli: il
+ * costo totale è O(n log log n), come quello del crivello, invece di una
+ * fattorizzazione per ogni numero.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public final class ArithmeticFunctions {
+
+    private ArithmeticFunctions() {
+    }
+
+    /**
+     * Calcola la funzione phi di Eulero, cioè quanti numeri tra 1 e k sono
+     * coprimi con k, per ogni k da 1 a n.
+     *
+     * @param n il numero più grande della tabella, almeno 1
+     * @return la tabella phi, con phi[k] = phi(k)
+     * @throws IllegalArgumentException se n è minore di 1
+     */
+    public static int[] eulerPhi(int n) {
+        int[] phi = new int[checkBound(n) + 1];
+        for (int k = 1; k <= n; k++) phi[k] = k;
+        PrimitiveIterator.OfInt primes = primes(n);
+        while (primes.hasNext()) {
+            int p = primes.nextInt();
+            // phi(m) = m * prod(1 - 1/p) sui primi p che dividono m; la
+            // divisione è esatta perché p non è ancora stato tolto da phi[m].
+            // Vicino a Integer.MAX_VALUE m + p va in overflow e diventa
+            // negativo, il che termina il ciclo
+            for (int m = p; m > 0 && m <= n; m += p) {
+                phi[m] -= phi[m] / p;
+            }
+        }
+        return phi;
+    }
+
+    /**
+     * Calcola il numero dei divisori di k, per ogni k da 1 a n.
+     *
+     * @param n il numero più grande della tabella, almeno 1
+     * @return la tabella tau, con tau[k] uguale al numero dei divisori di k
+     * @throws IllegalArgumentException se n è minore di 1
+     */
+    public static int[] divisorCount(int n) {
+        int[] tau = new int[checkBound(n) + 1];
+        Arrays.fill(tau, 1, n + 1, 1);
+        PrimitiveIterator.OfInt primes = primes(n);
+        while (primes.hasNext()) {
+            int p = primes.nextInt();
+            for (int m = p; m > 0 && m <= n; m += p) {
+                // se p^e divide esattamente m allora tau(m) ha il fattore e + 1
+                tau[m] *= exponent(m, p) + 1;
+            }
+        }
+        return tau;
+    }
+
+    /**
+     * Calcola la somma dei divisori di k, per ogni k da 1 a n.
+     *
+     * @param n il numero più grande della tabella, almeno 1
+     * @return la tabella sigma, con sigma[k] uguale alla somma dei divisori
+     * di k
+     * @throws IllegalArgumentException se n è minore di 1
+     */
+    public static long[] divisorSum(int n) {
+        long[] sigma = new long[checkBound(n) + 1];
+        Arrays.fill(sigma, 1, n + 1, 1);
+        PrimitiveIterator.OfInt primes = primes(n);
+        while (primes.hasNext()) {
+            int p = primes.nextInt();
+            for (int m = p; m > 0 && m <= n; m += p) {
+                // se p^e divide esattamente m allora sigma(m) ha il fattore
+                // 1 + p + ... + p^e = (p^(e + 1) - 1) / (p - 1)
+                long power = p;
+                for (int e = exponent(m, p); e > 0; e--) power *= p;
+                sigma[m] *= (power - 1) / (p - 1);
+            }
+        }
+        return sigma;
+    }
+
+    /**
+     * Calcola la funzione di Möbius di k, per ogni k da 1 a n: 0 se k è
+     * divisibile per un quadrato maggiore di 1, altrimenti 1 o -1 a seconda
+     * che k abbia un numero pari o dispari di fattori primi.
+     *
+     * @param n il numero più grande della tabella, almeno 1
+     * @return la tabella mu, con mu[k] uguale alla funzione di Möbius di k
+     * @throws IllegalArgumentException se n è minore di 1
+     */
+    public static byte[] moebius(int n) {
+        byte[] mu = new byte[checkBound(n) + 1];
+        Arrays.fill(mu, 1, n + 1, (byte) 1);
+        PrimitiveIterator.OfInt primes = primes(n);
+        while (primes.hasNext()) {
+            int p = primes.nextInt();
+            for (int m = p; m > 0 && m <= n; m += p) {
+                mu[m] = (byte) -mu[m];
+            }
+            long square = (long) p * p;
+            for (long m = square; m <= n; m += square) {
+                mu[(int) m] = 0;
+            }
+        }
+        return mu;
+    }
+
+    /*
+     * Esponente del primo p nella fattorizzazione di m, che è multiplo di p
+     */
+    private static int exponent(int m, int p) {
+        int e = 1;
+        for (int q = m / p; q % p == 0; q /= p) e++;
+        return e;
+    }
+
+    /*
+     * I numeri primi fino a n, letti da un crivello
+     */
+    private static PrimitiveIterator.OfInt primes(int n) {
+        if (n < 2) return IntStream.empty().iterator();
+        return new CrivelloDiEratostene(n).primeIterator();
+    }
+
+    private static int checkBound(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Il limite della tabella deve essere almeno 1.");
+        }
+        return n;
+    }
+}
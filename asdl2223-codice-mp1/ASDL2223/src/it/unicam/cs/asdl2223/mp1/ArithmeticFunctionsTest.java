@@ -0,0 +1,57 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ArithmeticFunctionsTest {
+
+    @Test
+    void testInvalidBound() {
+        assertThrows(IllegalArgumentException.class, () -> ArithmeticFunctions.eulerPhi(0));
+        assertThrows(IllegalArgumentException.class, () -> ArithmeticFunctions.moebius(-1));
+    }
+
+    @Test
+    void testSmallValues() {
+        assertArrayEquals(new int[] { 0, 1, 1, 2, 2, 4, 2, 6, 4, 6, 4, 10, 4 }, ArithmeticFunctions.eulerPhi(12));
+        assertArrayEquals(new int[] { 0, 1, 2, 2, 3, 2, 4, 2, 4, 3, 4, 2, 6 }, ArithmeticFunctions.divisorCount(12));
+        assertArrayEquals(new long[] { 0, 1, 3, 4, 7, 6, 12, 8, 15, 13, 18, 12, 28 }, ArithmeticFunctions.divisorSum(12));
+        assertArrayEquals(new byte[] { 0, 1, -1, -1, 0, -1, 1, -1, 0, 0, 1, -1, 0 }, ArithmeticFunctions.moebius(12));
+        assertArrayEquals(new int[] { 0, 1 }, ArithmeticFunctions.eulerPhi(1));
+    }
+
+    @Test
+    void testSameAsFactorisation() {
+        int n = 50_000;
+        int[] phi = ArithmeticFunctions.eulerPhi(n);
+        int[] tau = ArithmeticFunctions.divisorCount(n);
+        long[] sigma = ArithmeticFunctions.divisorSum(n);
+        byte[] mu = ArithmeticFunctions.moebius(n);
+        Factoriser f = new Factoriser();
+        for (int k = 1; k <= n; k++) {
+            long expectedPhi = k;
+            long expectedTau = 1;
+            long expectedSigma = 1;
+            int expectedMu = 1;
+            for (Factor factor : f.getFactors(k)) {
+                long p = factor.getPrimeValue();
+                int e = factor.getMultiplicity();
+                expectedPhi = expectedPhi / p * (p - 1);
+                expectedTau *= e + 1;
+                long power = 1;
+                long sum = 1;
+                for (int i = 0; i < e; i++) {
+                    power *= p;
+                    sum += power;
+                }
+                expectedSigma *= sum;
+                expectedMu = e > 1 ? 0 : -expectedMu;
+            }
+            assertEquals(expectedPhi, phi[k]);
+            assertEquals(expectedTau, tau[k]);
+            assertEquals(expectedSigma, sigma[k]);
+            assertEquals(expectedMu, mu[k]);
+        }
+    }
+}
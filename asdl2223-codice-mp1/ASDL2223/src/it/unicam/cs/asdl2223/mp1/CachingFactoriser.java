@@ -0,0 +1,206 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Una memoria delle fattorizzazioni già calcolate, da mettere davanti a un
+ * {@link Factoriser} quando gli stessi numeri vengono fattorizzati molte volte.
+ * La memoria contiene al più un numero fissato di fattorizzazioni: quando è
+ * piena viene tolta una di quelle usate meno di recente (politica LRU
+ * approssimata).
+ * <p>
+ * Per non far passare tutti i thread da un solo lock la memoria è divisa in
+ * strisce, fino a {@value #MAX_STRIPES}, ognuna con il proprio lock, la
+ * propria parte della capienza e il proprio ordine LRU, e ogni numero
+ * appartiene sempre alla stessa striscia. Quando una striscia è piena viene
+ * tolta la fattorizzazione usata meno di recente in quella striscia, che non
+ * è sempre la meno recente di tutta la memoria. Le memorie piccole usano una
+ * sola striscia e quindi l'ordine LRU esatto.
+ * <p>
+ * Le fattorizzazioni vengono restituite come liste immutabili di oggetti
+ * {@link Factor}, anch'essi immutabili, per cui la stessa lista può essere
+ * condivisa da tutti i chiamanti senza copiarla. La fattorizzazione di un
+ * numero che non è in memoria viene calcolata fuori dal lock, così che i
+ * thread non si blocchino a vicenda mentre fattorizzano. Se due thread
+ * chiedono insieme lo stesso numero assente può capitare che lo fattorizzino
+ * entrambi, ma in memoria finisce una sola lista.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class CachingFactoriser {
+
+    /*
+     * Numero massimo di strisce, potenza di 2
+     */
+    private static final int MAX_STRIPES = 16;
+
+    /*
+     * Capienza minima di una striscia, perché nelle memorie piccole l'ordine
+     * LRU resti esatto o quasi
+     */
+    private static final int MIN_STRIPE_ENTRIES = 64;
+
+    /*
+     * Il fattorizzatore usato per i numeri che non sono in memoria
+     */
+    private final Factoriser factoriser;
+
+    /*
+     * Numero massimo di fattorizzazioni in memoria
+     */
+    private final int maxEntries;
+
+    /*
+     * Le strisce della memoria, in numero potenza di 2
+     */
+    private final Stripe[] stripes;
+
+    // numero di richieste trovate in memoria
+    private final LongAdder hits = new LongAdder();
+
+    // numero di richieste che hanno richiesto una fattorizzazione
+    private final LongAdder misses = new LongAdder();
+
+    /*
+     * Una striscia della memoria: le sue fattorizzazioni in ordine di
+     * accesso, la prima è quella usata meno di recente. Va usata solo tenendo
+     * il lock sulla striscia.
+     */
+    private static final class Stripe extends LinkedHashMap<Integer, List<Factor>> {
+
+        private static final long serialVersionUID = 1L;
+
+        // numero massimo di fattorizzazioni nella striscia
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Factor>> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * Crea una memoria davanti al fattorizzatore passato.
+     *
+     * @param factoriser il fattorizzatore da usare per i numeri che non sono
+     *                   in memoria
+     * @param maxEntries il numero massimo di fattorizzazioni in memoria,
+     *                   almeno 1
+     * @throws NullPointerException     se il fattorizzatore passato è null
+     * @throws IllegalArgumentException se maxEntries è minore di 1
+     */
+    public CachingFactoriser(Factoriser factoriser, int maxEntries) {
+        if (factoriser == null) {
+            throw new NullPointerException("Il fattorizzatore passato è nullo.");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("La memoria deve contenere almeno una fattorizzazione.");
+        }
+        this.factoriser = factoriser;
+        this.maxEntries = maxEntries;
+        int count = Math.max(1, Math.min(MAX_STRIPES, Integer.highestOneBit(maxEntries / MIN_STRIPE_ENTRIES)));
+        this.stripes = new Stripe[count];
+        // la capienza viene divisa tra le strisce senza perdere il resto
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Restituisce la fattorizzazione di un numero, con le convenzioni di
+     * {@link Factoriser#getFactors(int)}, leggendola dalla memoria se c'è e
+     * altrimenti calcolandola e mettendola in memoria.
+     *
+     * @param n un numero intero da fattorizzare
+     * @return la lista immutabile dei fattori primi di n
+     * @throws IllegalArgumentException se si chiede di fattorizzare un
+     *                                  numero minore di 1.
+     */
+    public List<Factor> getFactors(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Si sta cercando di fattorizzare un numero minore di 1.");
+        }
+        Stripe stripe = stripeOf(n);
+        synchronized (stripe) {
+            List<Factor> factors = stripe.get(n);
+            if (factors != null) {
+                hits.increment();
+                return factors;
+            }
+        }
+        misses.increment();
+        List<Factor> factors = List.of(factoriser.getFactors(n));
+        synchronized (stripe) {
+            // se un altro thread ha già messo la fattorizzazione, uso la sua
+            List<Factor> previous = stripe.putIfAbsent(n, factors);
+            return previous != null ? previous : factors;
+        }
+    }
+
+    /**
+     * @return il numero di richieste la cui fattorizzazione era in memoria
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return il numero di richieste la cui fattorizzazione è stata
+     * calcolata
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return il numero di fattorizzazioni attualmente in memoria
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return il numero massimo di fattorizzazioni in memoria
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Svuota la memoria e azzera i contatori. Le richieste fatte insieme da
+     * altri thread possono restare in memoria o nei contatori.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /*
+     * La striscia a cui appartiene il numero n. I bit del numero vengono
+     * mescolati perché numeri vicini finiscano in strisce diverse anche
+     * quando hanno gli stessi bit bassi.
+     */
+    private Stripe stripeOf(int n) {
+        int h = n * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,81 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CachingFactoriserTest {
+    private static Factoriser f = new Factoriser();
+
+    @Test
+    final void testHitsAndMisses() {
+        CachingFactoriser c = new CachingFactoriser(f, 100);
+        List<Factor> first = c.getFactors(360);
+        assertEquals(Arrays.asList(f.getFactors(360)), first);
+        assertSame(first, c.getFactors(360));
+        assertEquals(1, c.getHits());
+        assertEquals(1, c.getMisses());
+        assertEquals(1, c.size());
+        assertThrows(UnsupportedOperationException.class, () -> first.set(0, new Factor(5, 1)));
+        assertEquals(0, c.getFactors(1).size());
+        c.clear();
+        assertEquals(0, c.size());
+        assertEquals(0, c.getHits());
+    }
+
+    @Test
+    final void testLruEviction() {
+        CachingFactoriser c = new CachingFactoriser(f, 3);
+        List<Factor> a = c.getFactors(10);
+        c.getFactors(11);
+        c.getFactors(12);
+        // 10 diventa il più recente, quindi viene tolto 11
+        assertSame(a, c.getFactors(10));
+        c.getFactors(13);
+        assertEquals(3, c.size());
+        assertSame(a, c.getFactors(10));
+        long misses = c.getMisses();
+        c.getFactors(11);
+        assertEquals(misses + 1, c.getMisses());
+    }
+
+    @Test
+    final void testStripedCapacity() {
+        // una memoria grande è divisa in strisce, che insieme non superano
+        // la capienza e alla fine sono tutte piene
+        CachingFactoriser c = new CachingFactoriser(f, 1001);
+        for (int n = 1; n <= 20_000; n++) {
+            c.getFactors(n);
+            assertTrue(c.size() <= 1001);
+        }
+        assertEquals(1001, c.size());
+        List<Factor> last = c.getFactors(20_000);
+        assertSame(last, c.getFactors(20_000));
+        assertEquals(20_000, c.getMisses());
+        assertEquals(2, c.getHits());
+    }
+
+    @Test
+    final void testConcurrentAccess() throws Exception {
+        CachingFactoriser c = new CachingFactoriser(f, 500);
+        ConcurrentRunner.run(4, index -> {
+            for (int n = 1; n <= 20_000; n++) {
+                int value = 1 + (n * 7919) % 1000;
+                assertEquals(Arrays.asList(f.getFactors(value)), c.getFactors(value));
+            }
+        });
+        assertEquals(4 * 20_000, c.getHits() + c.getMisses());
+        assertEquals(500, c.size());
+    }
+
+    @Test
+    final void testInvalid() {
+        assertThrows(NullPointerException.class, () -> new CachingFactoriser(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> new CachingFactoriser(f, 0));
+        CachingFactoriser c = new CachingFactoriser(f, 10);
+        assertThrows(IllegalArgumentException.class, () -> c.getFactors(0));
+    }
+}
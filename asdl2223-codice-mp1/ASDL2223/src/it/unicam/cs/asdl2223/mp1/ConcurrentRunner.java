@@ -0,0 +1,68 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Esegue lo stesso lavoro su più thread insieme, per i test di concorrenza.
+ * Tutti i thread partono insieme dopo una barriera, e se un thread fallisce
+ * la sua eccezione, con le asserzioni di JUnit che contiene, viene rilanciata
+ * così com'è al test, con la sua traccia.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class ConcurrentRunner {
+
+    private ConcurrentRunner() {
+    }
+
+    /*
+     * Il lavoro di un thread, che riceve la propria posizione da 0 a
+     * threads - 1
+     */
+    interface Worker {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * Esegue il lavoro su un numero dato di thread e aspetta che finiscano
+     * tutti.
+     *
+     * @param threads il numero di thread
+     * @param worker  il lavoro di ogni thread
+     * @throws Exception la prima eccezione lanciata da un thread, nell'ordine
+     *                   delle posizioni
+     */
+    static void run(int threads, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier start = new CyclicBarrier(threads);
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int index = t;
+                tasks.add(() -> {
+                    start.await();
+                    worker.run(index);
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw (Exception) cause;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
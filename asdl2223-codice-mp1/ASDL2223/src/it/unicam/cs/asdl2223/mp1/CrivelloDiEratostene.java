@@ -1,6 +1,10 @@
 package it.unicam.cs.asdl2223.mp1;
 
-import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Il crivello di Eratostene è un modo per determinare tutti i numeri primi da
@@ -22,30 +26,30 @@ import java.util.Arrays;
  * tutti i numeri primi da 2 alla capacità del crivello tramite una serie di
  * chiamate al metodo nextPrime(). L'elenco può essere fatto ripartire in
  * qualsiasi momento chiamando il metodo restartPrimeIteration() e si interrompe
- * non appena il metodo hasNextPrime() restituisce false.
+ * non appena il metodo hasNextPrime() restituisce false. L'elenco corrente è
+ * unico per tutto il crivello: per scorrere i numeri primi da più thread si
+ * usano invece i cursori indipendenti restituiti da primeIterator() oppure lo
+ * stream restituito da primes().
  *
  * @author Luca Tesei (template)
  * Christian Bonsignore christian.bonsignore@studenti.unicam.it (implementazione)
  */
 public class CrivelloDiEratostene {
     /*
-     * Array di booleani che rappresenta il crivello. La posizione i dell'arraya
-     * è true se e solo se il numero i è primo altrimenti la posizione i deve
-     * essere false. Le posizioni 0 e 1 dell'array non sono significative e non
-     * vengono usate. L'ultima posizione dell'array deve essere uguale alla
-     * capacità del crivello.
+     * Memoria che rappresenta il crivello. Per ogni numero i tra 2 e la
+     * capacità indica se i è primo. Vengono memorizzati solo i candidati della
+     * disposizione scelta, un bit ciascuno, per occupare almeno 16 volte meno
+     * memoria di un array di booleani.
      */
-    private boolean[] crivello;
+    private final PackedSieve crivello;
 
     /*
      * Capacità del crivello, immutabile
      */
     private final int capacity;
 
-    private final int startingPrime = 1;
-
-    //il contatore che tiene la posizione corrente nell'array, pari al numero primo corrente
-    private int currentPrime = 1;
+    // il cursore dell'elenco corrente dei numeri primi, che parte sempre da 2
+    private PrimeCursor elenco;
 
     /**
      * Costruisce e inizializza il crivello di Eratostene fino alla capacità
@@ -56,28 +60,111 @@ public class CrivelloDiEratostene {
      *                                  minore di {@code 2}
      */
     public CrivelloDiEratostene(int capacity) {
+        this(capacity, SieveLayout.ODD);
+    }
+
+    /**
+     * Costruisce e inizializza il crivello di Eratostene fino alla capacità
+     * data, memorizzando i numeri secondo la disposizione passata. La
+     * disposizione cambia solo la memoria occupata e il tempo di costruzione:
+     * il crivello risponde allo stesso modo con qualsiasi disposizione. La
+     * capacità deve essere almeno 2.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @param layout   la disposizione della memoria a bit
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     * @throws NullPointerException     se la disposizione passata è null
+     */
+    public CrivelloDiEratostene(int capacity, SieveLayout layout) {
+        if (layout == null) {
+            throw new NullPointerException("La disposizione passata è nulla.");
+        }
         if (capacity >= 2) {
             this.capacity = capacity;
         } else throw new IllegalArgumentException();
-        this.crivello = new boolean[this.capacity + 1];
-
-        // parto con l'array tutto settato a true escluse le posizioni per 0 e 1
-        // così da andare a settare a false poi i numeri non primi
-        Arrays.fill(crivello, 2, crivello.length, true);
-
-        // controllo fino alla radice del numero perché il quadrato del numero successivo alla radice
-        // è già successivo al numero da controllare
-        for (int i = startingPrime + 1; i < Math.sqrt(crivello.length); i++) {
-            if (crivello[i]) {
-
-                //parto da i * 2 per non settare a false il numero primo
-                for (int multiplo = i * 2; multiplo < crivello.length; multiplo += i) {
-                    crivello[multiplo] = false;
-                }
-            }
+        this.crivello = new PackedSieve(this.capacity, layout, null);
+        this.elenco = primeIterator();
+    }
+
+
+    /**
+     * Costruisce e inizializza il crivello di Eratostene fino alla capacità
+     * data, marcando in parallelo sul pool passato i segmenti in cui è diviso.
+     * Il crivello ottenuto è identico a quello costruito in sequenza. La
+     * capacità deve essere almeno 2.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @param pool     il pool di thread su cui costruire il crivello
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     * @throws NullPointerException     se il pool passato è null
+     */
+    public CrivelloDiEratostene(int capacity, ForkJoinPool pool) {
+        this(capacity, SieveLayout.ODD, pool);
+    }
+
+    /**
+     * Costruisce e inizializza il crivello di Eratostene fino alla capacità
+     * data con la disposizione passata, marcando in parallelo sul pool i
+     * segmenti in cui è diviso. La capacità deve essere almeno 2.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @param layout   la disposizione della memoria a bit
+     * @param pool     il pool di thread su cui costruire il crivello
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     * @throws NullPointerException     se la disposizione o il pool passati
+     *                                  sono null
+     */
+    public CrivelloDiEratostene(int capacity, SieveLayout layout, ForkJoinPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("Il pool passato è nullo.");
         }
+        if (layout == null) {
+            throw new NullPointerException("La disposizione passata è nulla.");
+        }
+        if (capacity >= 2) {
+            this.capacity = capacity;
+        } else throw new IllegalArgumentException();
+        this.crivello = new PackedSieve(this.capacity, layout, pool);
+        this.elenco = primeIterator();
+    }
+
+    /*
+     * Crea un crivello sulla memoria passata, già preparata per la capacità
+     * data.
+     */
+    private CrivelloDiEratostene(int capacity, PackedSieve crivello) {
+        this.capacity = capacity;
+        this.crivello = crivello;
+        this.elenco = primeIterator();
     }
 
+    /**
+     * Crea un crivello di Eratostene pigro fino alla capacità data. La
+     * costruzione calcola solo i numeri primi fino alla radice della
+     * capacità, cioè costa O(sqrt(capacity)) oltre all'allocazione della
+     * memoria a bit; ogni segmento del crivello viene marcato la prima volta
+     * che isPrime(int), nextPrime() o un cursore lo toccano. Il costo segue
+     * quindi l'uso effettivo: chi interroga solo numeri piccoli non paga la
+     * marcatura dei segmenti lontani. Le risposte sono identiche a quelle di
+     * un crivello costruito subito e più thread possono interrogarlo insieme.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @param layout   la disposizione della memoria a bit
+     * @return il crivello pigro
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     * @throws NullPointerException     se la disposizione passata è null
+     */
+    public static CrivelloDiEratostene lazy(int capacity, SieveLayout layout) {
+        if (layout == null) {
+            throw new NullPointerException("La disposizione passata è nulla.");
+        }
+        if (capacity < 2) throw new IllegalArgumentException();
+        return new CrivelloDiEratostene(capacity, PackedSieve.lazy(capacity, layout));
+    }
 
     /**
      * Restituisce la capacità di questo crivello, cioè il numero massimo di
@@ -89,6 +176,13 @@ public class CrivelloDiEratostene {
         return this.capacity;
     }
 
+    /**
+     * @return la disposizione della memoria a bit di questo crivello
+     */
+    public SieveLayout getLayout() {
+        return crivello.layout;
+    }
+
     /**
      * Controlla se un numero è primo. Può rispondere solo se il numero passato
      * come parametro è minore o uguale alla capacità di questo crivello.
@@ -104,7 +198,7 @@ public class CrivelloDiEratostene {
         if (n > capacity || n < 2) {
             throw new IllegalArgumentException("il numero passato eccede la capacità di questo crivello o è un numero minore di 2.");
         }
-        return this.crivello[n];
+        return this.crivello.isPrime(n);
     }
 
     /**
@@ -122,14 +216,7 @@ public class CrivelloDiEratostene {
      * numeri primi di questo crivello.
      */
     public boolean hasNextPrime() {
-        boolean flag = false;
-        for (int i = currentPrime + 1; i < crivello.length; i++) {
-            if (this.isPrime(i)) {
-                flag = true;
-                break;
-            }
-        }
-        return flag;
+        return elenco.hasNext();
     }
 
     /**
@@ -145,12 +232,10 @@ public class CrivelloDiEratostene {
      *                               ancora fatto ripartire.
      */
     public int nextPrime() {
-        if (this.hasNextPrime()) {
-            do {
-                currentPrime++;
-            } while (currentPrime < crivello.length && !(this.isPrime(currentPrime)));
-            return currentPrime;
-        } else throw new IllegalStateException("L'elenco è terminato e non è stato ancora fatto ripartire.");
+        if (!elenco.hasNext()) {
+            throw new IllegalStateException("L'elenco è terminato e non è stato ancora fatto ripartire.");
+        }
+        return elenco.nextInt();
     }
 
     /**
@@ -160,6 +245,55 @@ public class CrivelloDiEratostene {
      * comunque di ricominciare da 2.
      */
     public void restartPrimeIteration() {
-        currentPrime = startingPrime;
+        elenco = primeIterator();
+    }
+
+    /*
+     * Memoria a bit del crivello, per le strutture ausiliarie di questo
+     * package che la leggono direttamente.
+     */
+    PackedSieve bits() {
+        return crivello;
+    }
+
+    /**
+     * Restituisce un nuovo cursore che elenca tutti i numeri primi da 2 alla
+     * capacità di questo crivello. Il cursore è indipendente dall'elenco
+     * corrente e da tutti gli altri cursori, per cui più thread possono
+     * scorrere contemporaneamente lo stesso crivello.
+     *
+     * @return un cursore sui numeri primi di questo crivello
+     */
+    public PrimeCursor primeIterator() {
+        return new PrimeCursor(crivello, 2, capacity);
+    }
+
+    /**
+     * Restituisce un nuovo cursore che elenca i numeri primi di questo
+     * crivello compresi tra from e to, estremi inclusi.
+     *
+     * @param from il primo numero dell'intervallo
+     * @param to   l'ultimo numero dell'intervallo
+     * @return un cursore sui numeri primi dell'intervallo
+     * @throws IllegalArgumentException se to eccede la capacità di questo
+     *                                  crivello
+     */
+    public PrimeCursor primeIterator(int from, int to) {
+        if (to > capacity) {
+            throw new IllegalArgumentException("L'intervallo eccede la capacità di questo crivello.");
+        }
+        return new PrimeCursor(crivello, from, to);
+    }
+
+    /**
+     * Restituisce lo stream ordinato di tutti i numeri primi da 2 alla
+     * capacità di questo crivello. Ogni chiamata usa un nuovo cursore.
+     *
+     * @return lo stream dei numeri primi di questo crivello
+     */
+    public IntStream primes() {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(primeIterator(),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
     }
 }
@@ -2,6 +2,11 @@ package it.unicam.cs.asdl2223.mp1;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.Test;
 
 class CrivelloDiEratosteneTest {
@@ -254,4 +259,185 @@ class CrivelloDiEratosteneTest {
         });
 
     }
+
+    // ------------------------------- TEST memoria a bit
+    // -------------------------------
+
+    @Test
+    void testIsPrimeAcrossSegments() {
+        // la capacità copre più segmenti della memoria a bit
+        int capacity = 2 * SegmentSieve.SEGMENT_BITS * 2 + 1001;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        for (int n = 2; n <= capacity; n += 97) {
+            boolean prime = true;
+            for (int d = 2; d * d <= n; d++) {
+                if (n % d == 0) {
+                    prime = false;
+                    break;
+                }
+            }
+            assertEquals(prime, c.isPrime(n));
+        }
+        int count = 0;
+        while (c.hasNextPrime()) {
+            c.nextPrime();
+            count++;
+        }
+        // numero di primi minori o uguali a 1049577
+        assertEquals(82101, count);
+    }
+
+    // ------------------------------- TEST costruzione parallela
+    // -------------------------------
+
+    @Test
+    void testParallelSameAsSequential() {
+        int capacity = 5 * SegmentSieve.SEGMENT_BITS * 2 + 77;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CrivelloDiEratostene sequential = new CrivelloDiEratostene(capacity);
+            CrivelloDiEratostene parallel = new CrivelloDiEratostene(capacity, pool);
+            for (int n = 2; n <= capacity; n++) {
+                assertEquals(sequential.isPrime(n), parallel.isPrime(n));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new CrivelloDiEratostene(1, ForkJoinPool.commonPool()));
+        assertThrows(NullPointerException.class, () -> new CrivelloDiEratostene(10, (ForkJoinPool) null));
+    }
+
+    // ------------------------------- TEST cursori
+    // -------------------------------
+
+    @Test
+    void testPrimeIterator() {
+        int[] primes = new int[] { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37,
+                41, 43, 47, 53, 59, 61, 67, 71, 73, 79, 83, 89, 97, 101 };
+        CrivelloDiEratostene c = new CrivelloDiEratostene(102);
+        PrimitiveIterator.OfInt it = c.primeIterator();
+        for (int i = 0; i < primes.length; i++) {
+            assertTrue(it.hasNext());
+            assertEquals(primes[i], it.nextInt());
+        }
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, () -> it.nextInt());
+        assertArrayEquals(primes, c.primes().toArray());
+    }
+
+    @Test
+    void testPrimeIteratorRange() {
+        CrivelloDiEratostene c = new CrivelloDiEratostene(1000);
+        assertArrayEquals(new int[] { 97, 101, 103, 107, 109, 113 }, toArray(c.primeIterator(90, 113)));
+        assertArrayEquals(new int[] {}, toArray(c.primeIterator(24, 28)));
+        assertThrows(IllegalArgumentException.class, () -> c.primeIterator(2, 1001));
+    }
+
+    @Test
+    void testIndependentCursors() throws Exception {
+        CrivelloDiEratostene c = new CrivelloDiEratostene(1_000_000);
+        // somma dei numeri primi fino a un milione
+        ConcurrentRunner.run(4, index -> assertEquals(37550402023L, c.primes().asLongStream().sum()));
+        // l'elenco corrente non viene toccato dai cursori
+        assertEquals(2, c.nextPrime());
+    }
+
+    // ------------------------------- TEST disposizione a ruota
+    // -------------------------------
+
+    @Test
+    void testWheelSmallCapacities() {
+        for (int capacity = 2; capacity <= 500; capacity++) {
+            CrivelloDiEratostene odd = new CrivelloDiEratostene(capacity);
+            CrivelloDiEratostene wheel = new CrivelloDiEratostene(capacity, SieveLayout.WHEEL_210);
+            assertEquals(SieveLayout.WHEEL_210, wheel.getLayout());
+            for (int n = 2; n <= capacity; n++) {
+                assertEquals(odd.isPrime(n), wheel.isPrime(n));
+            }
+            assertArrayEquals(odd.primes().toArray(), wheel.primes().toArray());
+        }
+    }
+
+    @Test
+    void testWheelSameAsOdd() {
+        // la capacità copre più segmenti anche con la ruota
+        int capacity = 3 * SegmentSieve.SEGMENT_BITS * 210 / 48 + 12345;
+        CrivelloDiEratostene odd = new CrivelloDiEratostene(capacity);
+        CrivelloDiEratostene wheel = new CrivelloDiEratostene(capacity, SieveLayout.WHEEL_210);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CrivelloDiEratostene parallel = new CrivelloDiEratostene(capacity, SieveLayout.WHEEL_210, pool);
+            for (int n = 2; n <= capacity; n++) {
+                assertEquals(odd.isPrime(n), wheel.isPrime(n));
+                assertEquals(odd.isPrime(n), parallel.isPrime(n));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(odd.primes().toArray(), wheel.primes().toArray());
+        assertArrayEquals(new int[] { 2, 3, 5, 7, 11, 13 }, toArray(wheel.primeIterator(2, 16)));
+        assertArrayEquals(new int[] { 5, 7 }, toArray(wheel.primeIterator(4, 10)));
+    }
+
+    @Test
+    void testWheelInvalid() {
+        assertThrows(NullPointerException.class, () -> new CrivelloDiEratostene(10, (SieveLayout) null));
+        assertThrows(NullPointerException.class,
+                () -> new CrivelloDiEratostene(10, null, ForkJoinPool.commonPool()));
+        assertThrows(IllegalArgumentException.class, () -> new CrivelloDiEratostene(1, SieveLayout.WHEEL_210));
+    }
+
+    // ------------------------------- TEST crivello pigro
+    // -------------------------------
+
+    @Test
+    void testLazySameAsEager() {
+        int capacity = 3 * SegmentSieve.SEGMENT_BITS * 2 + 12345;
+        for (SieveLayout layout : SieveLayout.values()) {
+            CrivelloDiEratostene eager = new CrivelloDiEratostene(capacity, layout);
+            // interrogo prima i numeri in fondo, poi tutti gli altri
+            CrivelloDiEratostene lazy = CrivelloDiEratostene.lazy(capacity, layout);
+            for (int n = capacity; n >= capacity - 1000; n--) {
+                assertEquals(eager.isPrime(n), lazy.isPrime(n));
+            }
+            for (int n = 2; n <= capacity; n++) {
+                assertEquals(eager.isPrime(n), lazy.isPrime(n));
+            }
+            // un crivello pigro mai interrogato viene marcato dall'elenco
+            CrivelloDiEratostene untouched = CrivelloDiEratostene.lazy(capacity, layout);
+            assertArrayEquals(eager.primes().toArray(), untouched.primes().toArray());
+            assertEquals(new PrimeCountIndex(eager).totalPrimes(),
+                    new PrimeCountIndex(CrivelloDiEratostene.lazy(capacity, layout)).totalPrimes());
+        }
+        for (int small = 2; small <= 100; small++) {
+            assertArrayEquals(new CrivelloDiEratostene(small).primes().toArray(),
+                    CrivelloDiEratostene.lazy(small, SieveLayout.ODD).primes().toArray());
+        }
+    }
+
+    @Test
+    void testLazyConcurrent() throws Exception {
+        int capacity = 8 * SegmentSieve.SEGMENT_BITS * 2;
+        CrivelloDiEratostene eager = new CrivelloDiEratostene(capacity);
+        CrivelloDiEratostene lazy = CrivelloDiEratostene.lazy(capacity, SieveLayout.ODD);
+        ConcurrentRunner.run(4, index -> {
+            // ogni thread parte da un segmento diverso
+            for (int k = 0; k < capacity; k += 7) {
+                int n = 2 + (k + index * capacity / 4) % (capacity - 1);
+                assertEquals(eager.isPrime(n), lazy.isPrime(n), "numero " + n);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, () -> CrivelloDiEratostene.lazy(1, SieveLayout.ODD));
+        assertThrows(NullPointerException.class, () -> CrivelloDiEratostene.lazy(10, null));
+    }
+
+    private static int[] toArray(PrimitiveIterator.OfInt it) {
+        IntStream.Builder b = IntStream.builder();
+        it.forEachRemaining((int p) -> b.add(p));
+        return b.build().toArray();
+    }
 }
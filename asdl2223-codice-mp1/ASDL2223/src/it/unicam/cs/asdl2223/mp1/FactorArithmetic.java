@@ -0,0 +1,315 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Operazioni aritmetiche sui numeri rappresentati dalla loro fattorizzazione,
+ * cioè da un array di {@link Factor} in ordine crescente di numero primo, come
+ * quelli restituiti da {@link Factoriser}. Il prodotto, il massimo comun
+ * divisore, il minimo comune multiplo e la divisione esatta si calcolano
+ * scorrendo insieme le due fattorizzazioni, come nella fusione di due array
+ * ordinati, e combinando le molteplicità dei primi in comune: il costo è
+ * lineare nel numero di fattori e il risultato non viene mai moltiplicato, per
+ * cui non c'è overflow anche quando il numero rappresentato non sta in un
+ * {@code int}. L'array vuoto rappresenta il numero 1.
+ * <p>
+ * Le fattorizzazioni di n! e dei coefficienti binomiali si ricavano invece
+ * direttamente dai numeri primi fino a n con la formula di Legendre, senza
+ * calcolare il numero, che per n di qualche milione ha milioni di cifre.
+ * <p>
+ * I fattori degli array passati non vengono modificati e possono comparire
+ * anche nei risultati, visto che un oggetto Factor è immutabile.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public final class FactorArithmetic {
+
+    private FactorArithmetic() {
+    }
+
+    /**
+     * Calcola il prodotto di due numeri: le molteplicità dei primi in comune
+     * vengono sommate.
+     *
+     * @param a la fattorizzazione del primo numero
+     * @param b la fattorizzazione del secondo numero
+     * @return la fattorizzazione di a * b
+     * @throws NullPointerException     se uno degli array è null
+     * @throws IllegalArgumentException se uno degli array non è in ordine
+     *                                  strettamente crescente di numero primo
+     * @throws ArithmeticException      se una molteplicità supera
+     *                                  Integer.MAX_VALUE
+     */
+    public static Factor[] multiply(Factor[] a, Factor[] b) {
+        return merge(a, b, true, Math::addExact);
+    }
+
+    /**
+     * Calcola il massimo comun divisore di due numeri: restano solo i primi in
+     * comune, con la molteplicità minore.
+     *
+     * @param a la fattorizzazione del primo numero
+     * @param b la fattorizzazione del secondo numero
+     * @return la fattorizzazione di MCD(a, b)
+     * @throws NullPointerException     se uno degli array è null
+     * @throws IllegalArgumentException se uno degli array non è in ordine
+     *                                  strettamente crescente di numero primo
+     */
+    public static Factor[] gcd(Factor[] a, Factor[] b) {
+        return merge(a, b, false, Math::min);
+    }
+
+    /**
+     * Calcola il minimo comune multiplo di due numeri: restano tutti i primi,
+     * con la molteplicità maggiore.
+     *
+     * @param a la fattorizzazione del primo numero
+     * @param b la fattorizzazione del secondo numero
+     * @return la fattorizzazione di mcm(a, b)
+     * @throws NullPointerException     se uno degli array è null
+     * @throws IllegalArgumentException se uno degli array non è in ordine
+     *                                  strettamente crescente di numero primo
+     */
+    public static Factor[] lcm(Factor[] a, Factor[] b) {
+        return merge(a, b, true, Math::max);
+    }
+
+    /**
+     * Calcola il massimo comun divisore di tutti i numeri passati, che devono
+     * essere almeno uno.
+     *
+     * @param values le fattorizzazioni dei numeri
+     * @return la fattorizzazione del massimo comun divisore
+     * @throws NullPointerException     se l'array o una delle
+     *                                  fattorizzazioni sono null
+     * @throws IllegalArgumentException se non viene passato alcun numero o se
+     *                                  una fattorizzazione non è in ordine
+     *                                  strettamente crescente di numero primo
+     */
+    public static Factor[] gcd(Factor[][] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("Non è stato passato alcun numero.");
+        }
+        Factor[] result = values[0];
+        checkSorted(result);
+        // il risultato può solo diminuire, quindi mi fermo appena vale 1
+        for (int i = 1; i < values.length && result.length > 0; i++) {
+            result = gcd(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Calcola il minimo comune multiplo di tutti i numeri passati. Le
+     * fattorizzazioni vengono fuse a coppie, come nel merge sort, così che
+     * ogni fattore venga copiato solo un numero logaritmico di volte anche
+     * con migliaia di numeri. Il minimo comune multiplo di nessun numero è 1.
+     *
+     * @param values le fattorizzazioni dei numeri
+     * @return la fattorizzazione del minimo comune multiplo
+     * @throws NullPointerException     se l'array o una delle
+     *                                  fattorizzazioni sono null
+     * @throws IllegalArgumentException se una fattorizzazione non è in
+     *                                  ordine strettamente crescente di
+     *                                  numero primo
+     */
+    public static Factor[] lcm(Factor[][] values) {
+        if (values.length == 0) return new Factor[0];
+        return lcm(values, 0, values.length);
+    }
+
+    /**
+     * Divide un numero per un suo divisore: le molteplicità di b vengono
+     * sottratte da quelle di a e i primi che arrivano a 0 vengono tolti.
+     *
+     * @param a la fattorizzazione del dividendo
+     * @param b la fattorizzazione del divisore
+     * @return la fattorizzazione di a / b
+     * @throws NullPointerException     se uno degli array è null
+     * @throws IllegalArgumentException se b non divide a o se uno degli array
+     *                                  non è in ordine strettamente crescente
+     *                                  di numero primo
+     */
+    public static Factor[] divide(Factor[] a, Factor[] b) {
+        checkSorted(a);
+        checkSorted(b);
+        Factor[] result = new Factor[a.length];
+        int count = 0;
+        int j = 0;
+        for (Factor fa : a) {
+            int p = fa.getPrimeValue();
+            // un primo di b minore di p non compare in a
+            if (j < b.length && b[j].getPrimeValue() < p) throw notDivisor();
+            if (j < b.length && b[j].getPrimeValue() == p) {
+                int mult = fa.getMultiplicity() - b[j++].getMultiplicity();
+                if (mult < 0) throw notDivisor();
+                if (mult > 0) result[count++] = new Factor(p, mult);
+            } else {
+                result[count++] = fa;
+            }
+        }
+        if (j < b.length) throw notDivisor();
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Calcola la fattorizzazione di n! con la formula di Legendre: l'esponente
+     * di un primo p in n! è la somma dei quozienti interi di n per p, p^2,
+     * p^3 e così via. I primi fino a n vengono presi da un crivello di
+     * Eratostene e per ognuno servono O(log n) divisioni, per cui, oltre al
+     * crivello, il costo è O(pi(n) log n).
+     *
+     * @param n il numero di cui calcolare il fattoriale, non negativo
+     * @return la fattorizzazione di n!, vuota se n è 0 o 1
+     * @throws IllegalArgumentException se n è negativo
+     */
+    public static Factor[] factorial(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Il fattoriale è definito solo per i numeri non negativi.");
+        }
+        return fromPrimesUpTo(n, p -> legendre(n, p));
+    }
+
+    /**
+     * Calcola la fattorizzazione del coefficiente binomiale C(n, k), cioè di
+     * n! / (k! (n - k)!), senza passare dai tre fattoriali: l'esponente di
+     * ogni primo p fino a n è la differenza tra quello in n! e quelli in k! e
+     * (n - k)!, tutti calcolati con la formula di Legendre, e i primi con
+     * esponente 0 vengono tolti. Il costo, oltre al crivello, è
+     * O(pi(n) log n).
+     *
+     * @param n il numero di elementi, non negativo
+     * @param k il numero di elementi scelti, tra 0 e n
+     * @return la fattorizzazione di C(n, k), vuota se il coefficiente vale 1
+     * @throws IllegalArgumentException se n o k sono negativi o se k è
+     *                                  maggiore di n
+     */
+    public static Factor[] binomial(int n, int k) {
+        if (n < 0 || k < 0 || k > n) {
+            throw new IllegalArgumentException("Il coefficiente binomiale richiede 0 <= k <= n.");
+        }
+        return fromPrimesUpTo(n, p -> legendre(n, p) - legendre(k, p) - legendre(n - k, p));
+    }
+
+    /**
+     * Calcola il numero rappresentato da una fattorizzazione, che può essere
+     * arbitrariamente grande.
+     *
+     * @param a la fattorizzazione del numero
+     * @return il numero rappresentato
+     * @throws NullPointerException se l'array è null
+     */
+    public static BigInteger toBigInteger(Factor[] a) {
+        BigInteger result = BigInteger.ONE;
+        for (Factor f : a) {
+            result = result.multiply(BigInteger.valueOf(f.getPrimeValue()).pow(f.getMultiplicity()));
+        }
+        return result;
+    }
+
+    /*
+     * Il minimo comune multiplo dei numeri di values da from (incluso) a to
+     * (escluso), fondendo ricorsivamente le due metà.
+     */
+    private static Factor[] lcm(Factor[][] values, int from, int to) {
+        if (to - from == 1) {
+            checkSorted(values[from]);
+            return values[from];
+        }
+        int mid = (from + to) >>> 1;
+        return lcm(lcm(values, from, mid), lcm(values, mid, to));
+    }
+
+    /*
+     * Fonde due fattorizzazioni. I primi presenti in una sola delle due
+     * vengono tenuti se keepSingle è true; per i primi in comune la
+     * molteplicità del risultato è both(ma, mb) e il primo viene tolto se
+     * vale 0.
+     */
+    private static Factor[] merge(Factor[] a, Factor[] b, boolean keepSingle, IntBinaryOperator both) {
+        checkSorted(a);
+        checkSorted(b);
+        Factor[] result = new Factor[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int pa = a[i].getPrimeValue();
+            int pb = b[j].getPrimeValue();
+            if (pa < pb) {
+                if (keepSingle) result[count++] = a[i];
+                i++;
+            } else if (pb < pa) {
+                if (keepSingle) result[count++] = b[j];
+                j++;
+            } else {
+                int ma = a[i].getMultiplicity();
+                int mb = b[j].getMultiplicity();
+                int mult = both.applyAsInt(ma, mb);
+                // riuso il fattore esistente se la molteplicità non cambia
+                if (mult == ma) result[count++] = a[i];
+                else if (mult == mb) result[count++] = b[j];
+                else if (mult > 0) result[count++] = new Factor(pa, mult);
+                i++;
+                j++;
+            }
+        }
+        if (keepSingle) {
+            while (i < a.length) result[count++] = a[i++];
+            while (j < b.length) result[count++] = b[j++];
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /*
+     * Costruisce la fattorizzazione che ha come esponente di ogni primo p fino
+     * a n il valore exponent(p), scorrendo i primi di un crivello e saltando
+     * quelli con esponente 0.
+     */
+    private static Factor[] fromPrimesUpTo(int n, IntUnaryOperator exponent) {
+        if (n < 2) return new Factor[0];
+        Factor[] result = new Factor[64];
+        int count = 0;
+        PrimeCursor primes = new CrivelloDiEratostene(n, SieveLayout.WHEEL_210).primeIterator();
+        while (primes.hasNext()) {
+            int p = primes.nextInt();
+            int mult = exponent.applyAsInt(p);
+            if (mult == 0) continue;
+            if (count == result.length) result = Arrays.copyOf(result, count * 2);
+            result[count++] = new Factor(p, mult);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /*
+     * L'esponente del primo p in n!, cioè la somma di n / p^i per i >= 1.
+     * Dividendo ogni volta il quoziente precedente per p non si calcolano le
+     * potenze di p, che potrebbero superare Integer.MAX_VALUE.
+     */
+    private static int legendre(int n, int p) {
+        int exponent = 0;
+        for (int q = n / p; q > 0; q /= p) {
+            exponent += q;
+        }
+        return exponent;
+    }
+
+    private static IllegalArgumentException notDivisor() {
+        return new IllegalArgumentException("Il divisore passato non divide il dividendo.");
+    }
+
+    /*
+     * Controlla che i primi di una fattorizzazione siano in ordine
+     * strettamente crescente
+     */
+    private static void checkSorted(Factor[] a) {
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1].getPrimeValue() >= a[i].getPrimeValue()) {
+                throw new IllegalArgumentException("I fattori devono essere in ordine crescente di numero primo.");
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+class FactorArithmeticTest {
+    private static Factoriser f = new Factoriser();
+
+    @Test
+    final void testSameAsIntegers() {
+        for (int a = 1; a <= 300; a++) {
+            for (int b = 1; b <= 300; b++) {
+                Factor[] fa = f.getFactors(a);
+                Factor[] fb = f.getFactors(b);
+                int gcd = BigInteger.valueOf(a).gcd(BigInteger.valueOf(b)).intValue();
+                assertArrayEquals(f.getFactors(a * b), FactorArithmetic.multiply(fa, fb));
+                assertArrayEquals(f.getFactors(gcd), FactorArithmetic.gcd(fa, fb));
+                assertArrayEquals(f.getFactors(a / gcd * b), FactorArithmetic.lcm(fa, fb));
+                if (a % b == 0) {
+                    assertArrayEquals(f.getFactors(a / b), FactorArithmetic.divide(fa, fb));
+                } else {
+                    assertThrows(IllegalArgumentException.class, () -> FactorArithmetic.divide(fa, fb));
+                }
+            }
+        }
+    }
+
+    @Test
+    final void testLcmOfManyNumbers() {
+        // il minimo comune multiplo dei numeri da 1 a 5000 non sta in un long
+        Factor[][] values = new Factor[5000][];
+        BigInteger expected = BigInteger.ONE;
+        for (int n = 1; n <= values.length; n++) {
+            values[n - 1] = f.getFactors(n);
+            BigInteger big = BigInteger.valueOf(n);
+            expected = expected.divide(expected.gcd(big)).multiply(big);
+        }
+        Factor[] lcm = FactorArithmetic.lcm(values);
+        assertEquals(expected, FactorArithmetic.toBigInteger(lcm));
+        assertEquals(669, lcm.length);
+        assertArrayEquals(new Factor[0], FactorArithmetic.lcm(new Factor[0][]));
+        assertArrayEquals(f.getFactors(2), FactorArithmetic.gcd(new Factor[][] {
+                f.getFactors(24), f.getFactors(10), f.getFactors(1000) }));
+    }
+
+    @Test
+    final void testFactorialAndBinomial() {
+        BigInteger[] factorials = new BigInteger[201];
+        factorials[0] = BigInteger.ONE;
+        for (int n = 1; n < factorials.length; n++) {
+            factorials[n] = factorials[n - 1].multiply(BigInteger.valueOf(n));
+        }
+        for (int n = 0; n < factorials.length; n++) {
+            assertEquals(factorials[n], FactorArithmetic.toBigInteger(FactorArithmetic.factorial(n)));
+        }
+        for (int n = 0; n <= 80; n++) {
+            for (int k = 0; k <= n; k++) {
+                BigInteger expected = factorials[n].divide(factorials[k].multiply(factorials[n - k]));
+                assertEquals(expected, FactorArithmetic.toBigInteger(FactorArithmetic.binomial(n, k)));
+            }
+        }
+        assertArrayEquals(new Factor[0], FactorArithmetic.factorial(1));
+        assertArrayEquals(new Factor[0], FactorArithmetic.binomial(7, 7));
+        assertArrayEquals(f.getFactors(35), FactorArithmetic.binomial(7, 3));
+    }
+
+    @Test
+    final void testFactorialOfLargeNumber() {
+        int n = 10_000_000;
+        Factor[] factorial = FactorArithmetic.factorial(n);
+        // tutti i primi fino a 10^7 compaiono in 10^7!
+        assertEquals(664579, factorial.length);
+        // l'esponente di 2 in n! è n meno il numero di 1 nella scrittura binaria di n
+        assertEquals(new Factor(2, n - Integer.bitCount(n)), factorial[0]);
+        assertEquals(new Factor(9999991, 1), factorial[factorial.length - 1]);
+        // per il teorema di Kummer l'esponente di 2 in C(n, k) è il numero di
+        // riporti nella somma in binario di k e n - k
+        int k = 3_141_592;
+        Factor[] binomial = FactorArithmetic.binomial(n, k);
+        int carries = Integer.bitCount(k) + Integer.bitCount(n - k) - Integer.bitCount(n);
+        assertEquals(new Factor(2, carries), binomial[0]);
+        assertArrayEquals(FactorArithmetic.binomial(n, n - k), binomial);
+        assertArrayEquals(FactorArithmetic.factorial(n),
+                FactorArithmetic.multiply(binomial, FactorArithmetic.multiply(FactorArithmetic.factorial(k),
+                        FactorArithmetic.factorial(n - k))));
+    }
+
+    @Test
+    final void testInvalid() {
+        Factor[] unsorted = { new Factor(3, 1), new Factor(2, 1) };
+        assertThrows(IllegalArgumentException.class, () -> FactorArithmetic.multiply(unsorted, new Factor[0]));
+        assertThrows(IllegalArgumentException.class, () -> FactorArithmetic.gcd(new Factor[0][]));
+        assertThrows(NullPointerException.class, () -> FactorArithmetic.lcm(null, new Factor[0]));
+        Factor[] big = { new Factor(2, Integer.MAX_VALUE) };
+        assertThrows(ArithmeticException.class, () -> FactorArithmetic.multiply(big, big));
+        assertThrows(IllegalArgumentException.class, () -> FactorArithmetic.factorial(-1));
+        assertThrows(IllegalArgumentException.class, () -> FactorArithmetic.binomial(5, 6));
+        assertThrows(IllegalArgumentException.class, () -> FactorArithmetic.binomial(5, -1));
+    }
+}
@@ -0,0 +1,114 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Objects;
+
+/**
+ * Un contenitore riutilizzabile per i fattori primi di un {@code int}. I
+ * fattori vengono memorizzati in due array paralleli di interi, uno per i
+ * numeri primi e uno per le loro molteplicità, dimensionati per i 9 fattori
+ * primi distinti che un {@code int} può avere al massimo. Fattorizzare più
+ * numeri nello stesso contenitore con
+ * {@link Factoriser#getFactors(int, FactorBuffer)} non alloca quindi alcun
+ * oggetto, mentre {@link #toFactors()} fornisce la vista come array di
+ * {@link Factor} quando serve.
+ * <p>
+ * Un contenitore non è thread-safe: ogni thread deve usare il proprio.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class FactorBuffer {
+
+    /*
+     * Massimo numero di fattori primi distinti di un int:
+     * 2 * 3 * 5 * 7 * 11 * 13 * 17 * 19 * 23 * 29 eccede Integer.MAX_VALUE
+     */
+    static final int MAX_FACTORS = 9;
+
+    /*
+     * I numeri primi dei fattori, in ordine crescente
+     */
+    private final int[] primes = new int[MAX_FACTORS];
+
+    /*
+     * La posizione i contiene la molteplicità di primes[i]
+     */
+    private final int[] multiplicities = new int[MAX_FACTORS];
+
+    // numero di fattori attualmente contenuti
+    private int size;
+
+    /**
+     * @return il numero di fattori primi distinti contenuti
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Restituisce il numero primo del fattore di posizione i.
+     *
+     * @param i la posizione del fattore, tra 0 e size() - 1
+     * @return il numero primo del fattore
+     * @throws IndexOutOfBoundsException se la posizione non è valida
+     */
+    public int getPrime(int i) {
+        return primes[Objects.checkIndex(i, size)];
+    }
+
+    /**
+     * Restituisce la molteplicità del fattore di posizione i.
+     *
+     * @param i la posizione del fattore, tra 0 e size() - 1
+     * @return la molteplicità del fattore
+     * @throws IndexOutOfBoundsException se la posizione non è valida
+     */
+    public int getMultiplicity(int i) {
+        return multiplicities[Objects.checkIndex(i, size)];
+    }
+
+    /**
+     * Svuota il contenitore, che può essere riutilizzato per un'altra
+     * fattorizzazione.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Restituisce i fattori contenuti come array di {@link Factor}, nella
+     * forma restituita da {@link Factoriser#getFactors(int)}.
+     *
+     * @return un nuovo array con i fattori contenuti
+     */
+    public Factor[] toFactors() {
+        Factor[] result = new Factor[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = new Factor(primes[i], multiplicities[i]);
+        }
+        return result;
+    }
+
+    /*
+     * Aggiunge un fattore, con un numero primo maggiore di tutti quelli già
+     * contenuti.
+     */
+    void add(int prime, int multiplicity) {
+        primes[size] = prime;
+        multiplicities[size] = multiplicity;
+        size++;
+    }
+
+    /*
+     * Il fattore viene reso come la sequenza dei fattori, come per un array di
+     * Factor.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(primes[i]).append('^').append(multiplicities[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
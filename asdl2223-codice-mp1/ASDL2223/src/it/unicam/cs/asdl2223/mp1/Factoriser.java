@@ -1,5 +1,11 @@
 package it.unicam.cs.asdl2223.mp1;
 
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
 /**
  * Un fattorizzatore è un agente che fattorizza un qualsiasi numero naturale nei
  * sui fattori primi.
@@ -9,7 +15,49 @@ package it.unicam.cs.asdl2223.mp1;
  */
 public class Factoriser {
 
-    private Factor[] listOfFactors;
+    /*
+     * Limite delle divisioni per tentativi prima di passare all'algoritmo rho
+     * di Pollard nella fattorizzazione dei long
+     */
+    private static final int TRIAL_LIMIT = 1000;
+
+    /*
+     * Numero minimo di valori per ogni albero dei prodotti nella
+     * fattorizzazione a blocchi, perché con alberi più piccoli il costo della
+     * riduzione di P alla radice non viene ripartito su abbastanza numeri
+     */
+    private static final int MIN_TREE_SIZE = 32;
+
+    /*
+     * Tabella dei più piccoli fattori primi usata per fattorizzare i numeri
+     * che non la eccedono, null se si usano sempre le divisioni per tentativi
+     */
+    private final SmallestPrimeFactorTable table;
+
+    /**
+     * Crea un fattorizzatore che divide il numero per tutti i numeri primi
+     * fino alla sua radice.
+     */
+    public Factoriser() {
+        this.table = null;
+    }
+
+    /**
+     * Crea un fattorizzatore che usa la tabella dei più piccoli fattori primi
+     * passata per tutti i numeri che non eccedono il suo limite. Questi numeri
+     * vengono fattorizzati con O(log n) divisioni, senza costruire alcun
+     * crivello. I numeri più grandi vengono fattorizzati con le divisioni per
+     * tentativi. La stessa tabella può essere condivisa da più fattorizzatori.
+     *
+     * @param table la tabella dei più piccoli fattori primi
+     * @throws NullPointerException se la tabella passata è null
+     */
+    public Factoriser(SmallestPrimeFactorTable table) {
+        if (table == null) {
+            throw new NullPointerException("La tabella passata è nulla.");
+        }
+        this.table = table;
+    }
 
     /**
      * Fattorizza un numero restituendo la sequenza crescente dei suoi fattori
@@ -27,33 +75,422 @@ public class Factoriser {
         if (n < 1) {
             throw new IllegalArgumentException("Si sta cercando di fattorizzare un numero minore di 1.");
         }
+        // i primi fino alla radice di n vengono letti dall'elenco condiviso,
+        // che viene costruito una volta sola per tutti i fattorizzatori
+        int[] primes = PrimeCache.primesUpTo((int) SegmentSieve.isqrt(n)).values;
+        FactorBuffer factors = new FactorBuffer();
+        factorise(n, primes, factors);
+        return factors.toFactors();
+    }
+
+    /**
+     * Fattorizza un numero scrivendo i suoi fattori primi, in ordine
+     * crescente, nel contenitore passato, che viene prima svuotato. Le
+     * convenzioni sono quelle di getFactors(int). Una volta che l'elenco
+     * condiviso dei numeri primi è stato costruito, il metodo non alloca
+     * alcun oggetto, per cui riusando lo stesso contenitore si possono
+     * fattorizzare molti numeri senza produrre lavoro per il garbage
+     * collector.
+     *
+     * @param n      un numero intero da fattorizzare
+     * @param result il contenitore in cui scrivere i fattori primi di n
+     * @return il contenitore passato
+     * @throws IllegalArgumentException se si chiede di fattorizzare un
+     *                                  numero minore di 1.
+     * @throws NullPointerException     se il contenitore passato è null
+     */
+    public FactorBuffer getFactors(int n, FactorBuffer result) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Si sta cercando di fattorizzare un numero minore di 1.");
+        }
+        if (result == null) {
+            throw new NullPointerException("Il contenitore passato è nullo.");
+        }
+        factorise(n, PrimeCache.primesUpTo((int) SegmentSieve.isqrt(n)).values, result);
+        return result;
+    }
+
+    /**
+     * Fattorizza tutti i numeri di un array, nello stesso ordine. L'elenco dei
+     * numeri primi e il contenitore di appoggio vengono preparati una volta
+     * sola per tutto l'array.
+     *
+     * @param values i numeri interi da fattorizzare
+     * @return un array che in posizione i contiene i fattori primi di
+     * values[i], come restituiti da getFactors(int)
+     * @throws NullPointerException     se l'array passato è null
+     * @throws IllegalArgumentException se uno dei numeri è minore di 1
+     */
+    public Factor[][] getFactors(int[] values) {
+        int[] primes = primesFor(values);
+        Factor[][] result = new Factor[values.length][];
+        factoriseRange(values, result, primes, 0, values.length);
+        return result;
+    }
+
+    /**
+     * Fattorizza tutti i numeri di uno stream, nell'ordine dello stream.
+     *
+     * @param values i numeri interi da fattorizzare
+     * @return un array con i fattori primi di ogni numero dello stream
+     * @throws NullPointerException     se lo stream passato è null
+     * @throws IllegalArgumentException se uno dei numeri è minore di 1
+     */
+    public Factor[][] getFactors(IntStream values) {
+        if (values == null) {
+            throw new NullPointerException("Lo stream passato è nullo.");
+        }
+        return getFactors(values.toArray());
+    }
+
+    /**
+     * Fattorizza tutti i numeri di un array dividendo il lavoro sul pool
+     * passato. Tutti i task leggono lo stesso elenco dei numeri primi e ogni
+     * task usa un proprio contenitore di appoggio per tutti i numeri della sua
+     * porzione, per cui non viene allocato nulla per numero oltre al
+     * risultato.
+     *
+     * @param values i numeri interi da fattorizzare
+     * @param pool   il pool di thread su cui fattorizzare i numeri
+     * @return un array che in posizione i contiene i fattori primi di
+     * values[i], come restituiti da getFactors(int)
+     * @throws NullPointerException     se l'array o il pool passati sono
+     *                                  null
+     * @throws IllegalArgumentException se uno dei numeri è minore di 1
+     */
+    public Factor[][] getFactors(int[] values, ForkJoinPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("Il pool passato è nullo.");
+        }
+        int[] primes = primesFor(values);
+        Factor[][] result = new Factor[values.length][];
+        pool.invoke(new BatchTask(values, result, primes, 0, values.length));
+        return result;
+    }
 
-        if (n == 1) return new Factor[]{};
-        if (n == 2) return new Factor[]{new Factor(2,1)};
+    /**
+     * Fattorizza tutti i numeri di un array, nello stesso ordine, usando gli
+     * alberi dei prodotti e dei resti di Bernstein per i numeri che le
+     * divisioni per tentativi renderebbero costosi. Sia C la radice cubica e B
+     * la radice quadrata del numero più grande.
+     * <p>
+     * Ogni numero viene prima diviso per i primi fino a C, come in
+     * getFactors(int), e se il numero restante è 1 o primo la fattorizzazione
+     * è finita: succede per la maggior parte dei numeri casuali, che quindi
+     * costano come con le divisioni per tentativi. Un numero restante r senza
+     * fattori fino a C ha invece al più due fattori primi, entrambi maggiori
+     * di C. Per tutti questi numeri insieme si calcola P mod r, dove P è il
+     * prodotto dei primi tra C e B, scendendo l'albero dei prodotti dei numeri
+     * restanti di un blocco; elevando al quadrato si ottiene P^2 mod r, e il
+     * suo massimo comun divisore con r è la parte di r composta da primi fino
+     * a B (la "parte liscia"). Quello che resta di r non ha fattori fino a B
+     * ed è quindi 1 o un numero primo. Una parte liscia con due fattori primi
+     * viene infine divisa con l'algoritmo rho di Pollard.
+     * <p>
+     * Ogni blocco contiene tanti numeri che il prodotto della radice abbia
+     * all'incirca la dimensione di P: con blocchi più piccoli P verrebbe
+     * ridotto da capo per troppi blocchi, con blocchi più grandi i primi
+     * livelli dell'albero moltiplicherebbero numeri molto più grandi di P
+     * senza ridurlo. Il costo per numero non dipende quindi dalla lunghezza
+     * dell'array.
+     * <p>
+     * Il metodo conviene quando molti numeri sono prodotti di due primi
+     * grandi, per i quali le divisioni per tentativi arrivano fino alla
+     * radice: per questi numeri costa circa l'80% di getFactors(int) a 10^9,
+     * come si vede con NumberTheoryBenchmark, e circa la metà vicino a
+     * Integer.MAX_VALUE. Sui numeri casuali gli alberi costano quanto le
+     * divisioni vicino a Integer.MAX_VALUE e di più per i numeri piccoli, per
+     * cui in quel caso conviene getFactors(int[]). I numeri che non superano
+     * il limite della tabella dei più piccoli fattori primi, se il
+     * fattorizzatore ne ha una, vengono fattorizzati con la tabella come in
+     * getFactors(int).
+     *
+     * @param values i numeri interi da fattorizzare
+     * @return un array che in posizione i contiene i fattori primi di
+     * values[i], come restituiti da getFactors(int)
+     * @throws NullPointerException     se l'array passato è null
+     * @throws IllegalArgumentException se uno dei numeri è minore di 1
+     */
+    public Factor[][] getFactorsByProductTree(int[] values) {
+        int max = max(values);
+        int bound = (int) SegmentSieve.isqrt(max);
+        int[] primes = PrimeCache.primesUpTo(bound).values;
+        Factor[][] result = new Factor[values.length][];
+        // il più piccolo intero il cui cubo supera max
+        int cube = (int) Math.cbrt(max);
+        while ((long) cube * cube * cube <= max) cube++;
+        FactorBuffer scratch = new FactorBuffer();
 
-        // utilizzo un crivello fino alla radice di n per efficienza, poiché
-        CrivelloDiEratostene factoriser = new CrivelloDiEratostene((int) Math.sqrt(n));
-        // superata la radice il numero restante può solo essere primo
-        listOfFactors = new Factor[(int) Math.sqrt(n)];
+        // i numeri restanti con due fattori primi possibili, e la posizione
+        // del numero da cui vengono; in result resta intanto la
+        // fattorizzazione della parte divisa
+        int[] rests = new int[values.length];
+        int[] pending = new int[values.length];
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            int rest = factorise(values[i], primes, cube, scratch);
+            result[i] = scratch.toFactors();
+            if (rest > 1) {
+                rests[count] = rest;
+                pending[count++] = i;
+            }
+        }
+        if (count == 0) return result;
+
+        int first = 0;
+        while (first < primes.length && primes[first] <= cube) first++;
+        int last = first;
+        while (last < primes.length && primes[last] <= bound) last++;
+        long[] leaves = new long[Math.max(1, last - first)];
+        leaves[0] = 1;
+        for (int i = first; i < last; i++) {
+            leaves[i - first] = primes[i];
+        }
+        BigInteger product = new ProductTree(leaves).root();
+        // numeri per blocco perché il prodotto del blocco sia grande circa P
+        int bits = 32 - Integer.numberOfLeadingZeros(max);
+        int treeSize = Math.max(MIN_TREE_SIZE, product.bitLength() / bits);
+
+        for (int from = 0; from < count; from += treeSize) {
+            int to = Math.min(count, from + treeSize);
+            long[] block = new long[to - from];
+            for (int j = from; j < to; j++) {
+                block[j - from] = rests[j];
+            }
+            long[] remainders = new ProductTree(block).remainders(product);
+            for (int j = from; j < to; j++) {
+                long r = block[j - from];
+                // ogni fattore di r compare al più due volte
+                long y = remainders[j - from] * remainders[j - from] % r;
+                int smooth = (int) PollardRho.gcd(y, r);
+                scratch.clear();
+                for (Factor f : result[pending[j]]) {
+                    scratch.add(f.getPrimeValue(), f.getMultiplicity());
+                }
+                if (smooth > 1) splitSmooth(smooth, bound, scratch);
+                int rest = (int) (r / smooth);
+                // il resto è primo e maggiore di tutti i fattori della parte liscia
+                if (rest > 1) scratch.add(rest, 1);
+                result[pending[j]] = scratch.toFactors();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fattorizza un numero a 64 bit restituendo la sequenza crescente dei suoi
+     * fattori primi, con le stesse convenzioni di getFactors(int). I fattori
+     * piccoli vengono tolti con le divisioni per tentativi fino a
+     * {@value #TRIAL_LIMIT}; la parte restante viene scomposta con l'algoritmo
+     * rho di Pollard nella variante di Brent, controllando ogni parte con il
+     * test di Miller-Rabin deterministico, per cui qualsiasi {@code long}
+     * viene fattorizzato in pochi millisecondi.
+     *
+     * @param n un numero intero a 64 bit da fattorizzare
+     * @return un array contenente i fattori primi di n
+     * @throws IllegalArgumentException se si chiede di fattorizzare un
+     *                                  numero minore di 1.
+     */
+    public LongFactor[] getFactors(long n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Si sta cercando di fattorizzare un numero minore di 1.");
+        }
+        // un long ha al massimo 62 fattori primi contati con molteplicità
+        long[] primes = new long[64];
+        int count = 0;
+        for (int prime : PrimeCache.primesUpTo(TRIAL_LIMIT).values) {
+            if (prime > TRIAL_LIMIT || prime > n / prime) break;
+            while (n % prime == 0) {
+                n = n / prime;
+                primes[count++] = prime;
+            }
+        }
+        if (n > 1) count = split(n, primes, count);
+        Arrays.sort(primes, 0, count);
+
+        // raggruppo i primi uguali, che dopo l'ordinamento sono adiacenti
+        LongFactor[] factors = new LongFactor[count];
         int contPosition = 0;
+        for (int i = 0; i < count; ) {
+            int j = i;
+            while (j < count && primes[j] == primes[i]) j++;
+            factors[contPosition++] = new LongFactor(primes[i], j - i);
+            i = j;
+        }
+        return Arrays.copyOf(factors, contPosition);
+    }
+
+    /*
+     * Aggiunge a primes, a partire dalla posizione count, tutti i fattori
+     * primi di n, che è dispari e maggiore di 1, e restituisce il nuovo numero
+     * di primi.
+     */
+    private static int split(long n, long[] primes, int count) {
+        if (MillerRabin.isPrime(n)) {
+            primes[count++] = n;
+            return count;
+        }
+        long d = PollardRho.findFactor(n);
+        count = split(d, primes, count);
+        return split(n / d, primes, count);
+    }
+
+    /*
+     * Controlla i numeri da fattorizzare e restituisce l'elenco dei primi fino
+     * alla radice del più grande.
+     */
+    private int[] primesFor(int[] values) {
+        return PrimeCache.primesUpTo((int) SegmentSieve.isqrt(max(values))).values;
+    }
 
-        while (factoriser.hasNextPrime()) {
-            int prime = factoriser.nextPrime();
+    /*
+     * Controlla i numeri da fattorizzare e restituisce il più grande, 1 se
+     * l'array è vuoto.
+     */
+    private static int max(int[] values) {
+        if (values == null) {
+            throw new NullPointerException("L'array passato è nullo.");
+        }
+        int max = 1;
+        for (int n : values) {
+            if (n < 1) {
+                throw new IllegalArgumentException("Si sta cercando di fattorizzare un numero minore di 1.");
+            }
+            max = Math.max(max, n);
+        }
+        return max;
+    }
+
+    /*
+     * Fattorizza i numeri di values da from (incluso) a to (escluso) con un
+     * solo contenitore di appoggio.
+     */
+    private void factoriseRange(int[] values, Factor[][] result, int[] primes, int from, int to) {
+        FactorBuffer scratch = new FactorBuffer();
+        for (int i = from; i < to; i++) {
+            factorise(values[i], primes, scratch);
+            result[i] = scratch.toFactors();
+        }
+    }
+
+    /*
+     * Svuota result e ci scrive i fattori primi di un numero almeno uguale a
+     * 1, usando la tabella se il numero non la eccede, altrimenti le divisioni
+     * per i primi dell'elenco, che deve arrivare almeno alla radice di n.
+     */
+    private void factorise(int n, int[] primes, FactorBuffer result) {
+        factorise(n, primes, Integer.MAX_VALUE, result);
+    }
+
+    /*
+     * Come factorise(int, int[], FactorBuffer), ma divide solo per i primi
+     * fino a limit. Se così la fattorizzazione finisce restituisce 1,
+     * altrimenti il numero restante, che non viene scritto in result, non ha
+     * fattori fino a limit ed è maggiore del quadrato di limit.
+     */
+    private int factorise(int n, int[] primes, int limit, FactorBuffer result) {
+        result.clear();
+        if (table != null && n <= table.getBound()) {
+            factoriseWithTable(n, result);
+            return 1;
+        }
+        for (int prime : primes) {
+            // superata la radice il numero restante può solo essere primo
+            if (prime > n / prime) break;
+            if (prime > limit) return n;
             int mult = 0;
             while (n % prime == 0) { //finché n è multiplo di prime
                 n = n / prime;       //dividi n per prime
                 mult++;              //e aumenta la molteplicità di prime
             }
             if (mult > 0) {
-                listOfFactors[contPosition++] = new Factor(prime, mult);
+                result.add(prime, mult);
             }
         }
         if(n>1){
-            listOfFactors[contPosition++] = new Factor(n, 1);
+            result.add(n, 1);
         }
-        Factor[] result = new Factor[contPosition];
-        System.arraycopy(listOfFactors, 0, result, 0, contPosition);
+        return 1;
+    }
 
-        return result;
+    /*
+     * Aggiunge a result i fattori primi di una parte liscia, che ha uno o due
+     * fattori primi, tutti maggiori della radice cubica del numero più
+     * grande e al più uguali a bound, la sua radice. Una parte liscia fino a
+     * bound è quindi prima, mentre le altre vengono controllate con il test
+     * di Miller-Rabin e, se non sono prime, divise con l'algoritmo rho di
+     * Pollard.
+     */
+    private static void splitSmooth(int n, int bound, FactorBuffer result) {
+        if (n <= bound || MillerRabin.isPrime(n)) {
+            result.add(n, 1);
+            return;
+        }
+        int p = (int) PollardRho.findFactor(n);
+        int q = n / p;
+        if (p == q) {
+            result.add(p, 2);
+        } else {
+            result.add(Math.min(p, q), 1);
+            result.add(Math.max(p, q), 1);
+        }
+    }
+
+    /*
+     * Fattorizza un numero compreso tra 1 e il limite della tabella dividendolo
+     * ogni volta per il suo più piccolo fattore primo.
+     */
+    private void factoriseWithTable(int n, FactorBuffer result) {
+        // il fattore 2 si legge dagli zeri finali della rappresentazione binaria
+        int twos = Integer.numberOfTrailingZeros(n);
+        if (twos > 0) {
+            result.add(2, twos);
+            n >>>= twos;
+        }
+        while (n > 1) {
+            int prime = table.lookup(n);
+            int mult = 0;
+            do {
+                n = n / prime;
+                mult++;
+            } while (n % prime == 0);
+            result.add(prime, mult);
+        }
+    }
+
+    /*
+     * Fattorizza i numeri di values da from (incluso) a to (escluso),
+     * dividendo l'intervallo a metà finché non diventa abbastanza piccolo da
+     * essere fattorizzato da un solo task con un solo contenitore di appoggio.
+     */
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 1024;
+
+        private final int[] values;
+        private final Factor[][] result;
+        private final int[] primes;
+        private final int from;
+        private final int to;
+
+        BatchTask(int[] values, Factor[][] result, int[] primes, int from, int to) {
+            this.values = values;
+            this.result = result;
+            this.primes = primes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                factoriseRange(values, result, primes, from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(values, result, primes, from, mid),
+                        new BatchTask(values, result, primes, mid, to));
+            }
+        }
     }
 }
@@ -2,6 +2,10 @@ package it.unicam.cs.asdl2223.mp1;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
 import org.junit.jupiter.api.Test;
 
 class FactoriserTest {
@@ -104,4 +108,193 @@ class FactoriserTest {
         assertTrue(r[1].equals(new Factor(5, 1)));
         assertTrue(r[2].equals(new Factor(4289, 1)));
     }
+
+    // ------------------------------- TEST tabella dei più piccoli fattori primi
+    // -------------------------------
+
+    @Test
+    final void testSmallestPrimeFactorTable() {
+        SmallestPrimeFactorTable t = new SmallestPrimeFactorTable(1000);
+        assertEquals(2, t.smallestPrimeFactor(2));
+        assertEquals(997, t.smallestPrimeFactor(997));
+        assertEquals(3, t.smallestPrimeFactor(999));
+        assertEquals(31, t.smallestPrimeFactor(961));
+        assertThrows(IllegalArgumentException.class, () -> t.smallestPrimeFactor(1));
+        assertThrows(IllegalArgumentException.class, () -> t.smallestPrimeFactor(1001));
+        assertThrows(IllegalArgumentException.class, () -> new SmallestPrimeFactorTable(1));
+    }
+
+    @Test
+    final void testGetFactorsWithTable() {
+        Factoriser withTable = new Factoriser(new SmallestPrimeFactorTable(100_000));
+        for (int n = 1; n <= 100_000; n++) {
+            assertArrayEquals(f.getFactors(n), withTable.getFactors(n));
+        }
+        // oltre il limite della tabella si usano le divisioni per tentativi
+        assertArrayEquals(f.getFactors(24 * 3 * 7 * 7 * 7 * 23), withTable.getFactors(24 * 3 * 7 * 7 * 7 * 23));
+        assertThrows(NullPointerException.class, () -> new Factoriser(null));
+    }
+
+    // ------------------------------- TEST elenco condiviso dei primi
+    // -------------------------------
+
+    @Test
+    final void testPrimeCacheGrows() {
+        int[] primes = PrimeCache.primesUpTo(5000).values;
+        assertTrue(PrimeCache.primesUpTo(5000).limit >= 5000);
+        assertEquals(2, primes[0]);
+        assertTrue(primes[primes.length - 1] >= 4999);
+        // un limite già coperto non ricostruisce l'elenco
+        assertSame(PrimeCache.primesUpTo(5000), PrimeCache.primesUpTo(100));
+    }
+
+    @Test
+    final void testConcurrentFactorisers() throws Exception {
+        int[] values = new int[] { Integer.MAX_VALUE, 2147483629, 2147395600, 1000000007, 999999999 };
+        Factor[][] expected = new Factor[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = new Factoriser().getFactors(values[i]);
+        }
+        ConcurrentRunner.run(4, index -> {
+            Factoriser mine = new Factoriser();
+            for (int i = 0; i < values.length; i++) {
+                assertArrayEquals(expected[i], mine.getFactors(values[i]));
+            }
+        });
+        // 2147395600 = 46340^2
+        assertArrayEquals(new Factor[] { new Factor(2, 4), new Factor(5, 2), new Factor(7, 2), new Factor(331, 2) },
+                expected[2]);
+    }
+
+    // ------------------------------- TEST fattorizzazione in blocco
+    // -------------------------------
+
+    @Test
+    final void testGetFactorsBatch() {
+        int[] values = IntStream.rangeClosed(1, 5000).map(i -> Integer.MAX_VALUE - i * 7919).toArray();
+        Factor[][] batch = f.getFactors(values);
+        assertEquals(values.length, batch.length);
+        for (int i = 0; i < values.length; i++) {
+            assertArrayEquals(f.getFactors(values[i]), batch[i]);
+        }
+        assertArrayEquals(batch, f.getFactors(Arrays.stream(values)));
+        assertEquals(0, f.getFactors(new int[0]).length);
+    }
+
+    @Test
+    final void testGetFactorsParallel() {
+        int[] values = IntStream.rangeClosed(1, 20000).toArray();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Factor[][] parallel = f.getFactors(values, pool);
+            assertArrayEquals(f.getFactors(values), parallel);
+            Factor[][] withTable = new Factoriser(new SmallestPrimeFactorTable(20000)).getFactors(values, pool);
+            assertArrayEquals(parallel, withTable);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    final void testGetFactorsBatchInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> f.getFactors(new int[] { 4, 0, 6 }));
+        assertThrows(NullPointerException.class, () -> f.getFactors(new int[] { 4 }, null));
+        assertThrows(NullPointerException.class, () -> f.getFactors((int[]) null));
+    }
+
+    @Test
+    final void testGetFactorsByProductTree() {
+        int[] values = IntStream.rangeClosed(1, 20000).toArray();
+        assertArrayEquals(f.getFactors(values), f.getFactorsByProductTree(values));
+        // numeri grandi, primi, potenze e prodotti di due primi vicini alla
+        // radice di Integer.MAX_VALUE
+        int[] large = IntStream.rangeClosed(1, 5000).map(i -> Integer.MAX_VALUE - i * 7919).toArray();
+        assertArrayEquals(f.getFactors(large), f.getFactorsByProductTree(large));
+        int[] special = { 1, 2, 4, 8, 9, 27, 2147483647, 1 << 30, 46337 * 46327, 46337 * 46337,
+                3 * 46337 * 15443, 223092870, 1 };
+        assertArrayEquals(f.getFactors(special), f.getFactorsByProductTree(special));
+        // con la tabella i numeri fino al suo limite non passano dagli alberi,
+        // gli altri sì, anche quando la parte liscia sta nella tabella
+        Factoriser withTable = new Factoriser(new SmallestPrimeFactorTable(10000));
+        int[] mixed = IntStream.rangeClosed(1, 30000).map(i -> i % 2 == 0 ? i / 2 : Integer.MAX_VALUE - i).toArray();
+        assertArrayEquals(f.getFactors(mixed), withTable.getFactorsByProductTree(mixed));
+        assertEquals(0, f.getFactorsByProductTree(new int[0]).length);
+        assertThrows(IllegalArgumentException.class, () -> f.getFactorsByProductTree(new int[] { 4, 0 }));
+        assertThrows(NullPointerException.class, () -> f.getFactorsByProductTree(null));
+    }
+
+    // ------------------------------- TEST fattorizzazione dei long
+    // -------------------------------
+
+    @Test
+    final void testGetFactorsLong1() {
+        assertThrows(IllegalArgumentException.class, () -> f.getFactors(0L));
+        assertEquals(0, f.getFactors(1L).length);
+        assertArrayEquals(new LongFactor[] { new LongFactor(2, 62) }, f.getFactors(1L << 62));
+    }
+
+    @Test
+    final void testGetFactorsLong2() {
+        LongFactor[] r = f.getFactors(Long.MAX_VALUE);
+        assertArrayEquals(new LongFactor[] { new LongFactor(7, 2), new LongFactor(73, 1), new LongFactor(127, 1),
+                new LongFactor(337, 1), new LongFactor(92737, 1), new LongFactor(649657, 1) }, r);
+    }
+
+    @Test
+    final void testGetFactorsLong3() {
+        // prodotto di due primi vicini alla radice di Long.MAX_VALUE
+        LongFactor[] r = f.getFactors(3037000453L * 3037000493L);
+        assertArrayEquals(new LongFactor[] { new LongFactor(3037000453L, 1), new LongFactor(3037000493L, 1) }, r);
+        r = f.getFactors(2147483647L * 2147483647L);
+        assertArrayEquals(new LongFactor[] { new LongFactor(2147483647L, 2) }, r);
+        // il più grande primo minore di 2^63
+        r = f.getFactors(9223372036854775783L);
+        assertArrayEquals(new LongFactor[] { new LongFactor(9223372036854775783L, 1) }, r);
+    }
+
+    @Test
+    final void testGetFactorsLongSameAsInt() {
+        for (int n = 1; n <= 20000; n++) {
+            Factor[] expected = f.getFactors(n);
+            LongFactor[] r = f.getFactors((long) n);
+            assertEquals(expected.length, r.length);
+            for (int i = 0; i < r.length; i++) {
+                assertEquals(expected[i].getPrimeValue(), r[i].getPrimeValue());
+                assertEquals(expected[i].getMultiplicity(), r[i].getMultiplicity());
+            }
+        }
+    }
+
+    // ------------------------------- TEST contenitore riutilizzabile
+    // -------------------------------
+
+    @Test
+    final void testGetFactorsIntoBuffer() {
+        FactorBuffer b = new FactorBuffer();
+        assertSame(b, f.getFactors(24 * 3 * 7, b));
+        assertEquals(3, b.size());
+        assertEquals(2, b.getPrime(0));
+        assertEquals(3, b.getMultiplicity(0));
+        assertEquals(7, b.getPrime(2));
+        assertEquals(1, b.getMultiplicity(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> b.getPrime(3));
+        assertEquals("[2^3, 3^2, 7^1]", b.toString());
+        // il contenitore viene svuotato a ogni fattorizzazione
+        f.getFactors(1, b);
+        assertEquals(0, b.size());
+        f.getFactors(223092870, b);
+        assertEquals(9, b.size());
+        assertThrows(IllegalArgumentException.class, () -> f.getFactors(0, b));
+        assertThrows(NullPointerException.class, () -> f.getFactors(10, null));
+    }
+
+    @Test
+    final void testBufferSameAsArray() {
+        Factoriser withTable = new Factoriser(new SmallestPrimeFactorTable(1 << 16));
+        FactorBuffer b = new FactorBuffer();
+        for (int n = 1; n <= 200_000; n++) {
+            assertArrayEquals(f.getFactors(n), f.getFactors(n, b).toFactors());
+            assertArrayEquals(f.getFactors(n), withTable.getFactors(n, b).toFactors());
+        }
+    }
 }
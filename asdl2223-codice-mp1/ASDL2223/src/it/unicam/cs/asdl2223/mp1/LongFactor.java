@@ -0,0 +1,97 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static java.util.Objects.hash;
+
+/**
+ * Un oggetto di questa classe rappresenta un fattore primo di un numero
+ * naturale a 64 bit con una certa molteplicità. È l'analogo di {@link Factor}
+ * per i numeri di tipo {@code long}.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class LongFactor implements Comparable<LongFactor> {
+
+    /*
+     * Numero primo corrispondente a questo fattore
+     */
+    private final long primeValue;
+
+    /*
+     * Molteplicità del numero primo di questo fattore, deve essere maggiore o
+     * uguale a 1.
+     */
+    private final int multiplicity;
+
+    /**
+     * Crea un fattore primo di un numero naturale, formato da un numero primo e
+     * dalla sua molteplicità.
+     *
+     * @param primeValue,   numero primo
+     * @param multiplicity, valore della molteplicità, deve essere almeno 1
+     * @throws IllegalArgumentException se la molteplicità è minore di 1
+     *                                  oppure se primeValue è minore o
+     *                                  uguale di 0.
+     */
+    public LongFactor(long primeValue, int multiplicity) {
+        if (primeValue <= 0 || multiplicity < 1) {
+            throw new IllegalArgumentException("La molteplicità è minore di 1 oppure primeValue è minore o uguale di 0.");
+        }
+        this.primeValue = primeValue;
+        this.multiplicity = multiplicity;
+    }
+
+    /**
+     * @return the primeValue
+     */
+    public long getPrimeValue() {
+        return primeValue;
+    }
+
+    /**
+     * @return the multiplicity
+     */
+    public int getMultiplicity() {
+        return multiplicity;
+    }
+
+    /*
+     * Calcola l'hashcode dell'oggetto in accordo ai valori usati per definire
+     * il metodo equals.
+     */
+    @Override
+    public int hashCode() {
+        return hash(primeValue, multiplicity);
+    }
+
+    /*
+     * Due oggetti LongFactor sono uguali se e solo se hanno lo stesso numero primo
+     * e la stessa molteplicità
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof LongFactor)) return false;
+        if (this == obj) return true;
+
+        return this.primeValue == ((LongFactor) obj).primeValue && this.multiplicity == ((LongFactor) obj).multiplicity;
+    }
+
+    /*
+     * Un LongFactor è minore di un altro se contiene il numero primo minore. Se
+     * due LongFactor hanno lo stesso numero primo allora il più piccolo dei due è
+     * quello ce ha minore molteplicità.
+     */
+    @Override
+    public int compareTo(LongFactor o) {
+        if (this.primeValue == o.primeValue)
+            return Integer.compare(this.multiplicity, o.multiplicity);
+        return Long.compare(this.primeValue, o.primeValue);
+    }
+
+    /*
+     * Il fattore viene reso con la stringa primeValue^multiplicity
+     */
+    @Override
+    public String toString() {
+        return this.primeValue + "^" + this.multiplicity;
+    }
+}
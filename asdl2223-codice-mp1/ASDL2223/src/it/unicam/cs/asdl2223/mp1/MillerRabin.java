@@ -0,0 +1,67 @@
+package it.unicam.cs.asdl2223.mp1;
+
+/**
+ * Test di primalità di Miller-Rabin deterministico per tutti i numeri
+ * {@code long}. Con le sette basi di Jim Sinclair il test non sbaglia su
+ * nessun numero minore di 2^64, per cui il risultato è esatto e non
+ * probabilistico. Le potenze modulari usano la moltiplicazione di Montgomery.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public final class MillerRabin {
+
+    /*
+     * Basi sufficienti per tutti i numeri minori di 2^64
+     */
+    private static final long[] BASES = { 2, 325, 9375, 28178, 450775, 9780504, 1795265022 };
+
+    /*
+     * Primi piccoli con cui scartare subito i multipli più frequenti
+     */
+    private static final int[] SMALL_PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37 };
+
+    private MillerRabin() {
+    }
+
+    /**
+     * Controlla se un numero è primo.
+     *
+     * @param n il numero da controllare
+     * @return true se n è primo, false altrimenti, anche per i numeri minori
+     * di 2
+     */
+    public static boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (int p : SMALL_PRIMES) {
+            if (n % p == 0) return n == p;
+        }
+        // sotto 41^2 un numero senza fattori primi piccoli è primo
+        if (n < 41 * 41) return true;
+        return isProbablePrime(new Montgomery(n));
+    }
+
+    /*
+     * Esegue il test con tutte le basi per il modulo dispari dell'aritmetica
+     * passata.
+     */
+    static boolean isProbablePrime(Montgomery m) {
+        long n = m.n;
+        // n - 1 = d * 2^s con d dispari
+        int s = Long.numberOfTrailingZeros(n - 1);
+        long d = (n - 1) >>> s;
+        long minusOne = n - m.one;
+        for (long base : BASES) {
+            long a = base % n;
+            if (a == 0) continue;
+            long x = m.pow(m.toMontgomery(a), d);
+            if (x == m.one || x == minusOne) continue;
+            boolean composite = true;
+            for (int r = 1; r < s && composite; r++) {
+                x = m.multiply(x, x);
+                if (x == minusOne) composite = false;
+            }
+            if (composite) return false;
+        }
+        return true;
+    }
+}
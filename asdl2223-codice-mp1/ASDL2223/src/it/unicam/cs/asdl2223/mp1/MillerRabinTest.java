@@ -0,0 +1,42 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MillerRabinTest {
+
+    @Test
+    void testSameAsCrivello() {
+        int capacity = 100_000;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        for (int n = 2; n <= capacity; n++) {
+            assertEquals(c.isPrime(n), MillerRabin.isPrime(n));
+        }
+    }
+
+    @Test
+    void testSmallValues() {
+        assertFalse(MillerRabin.isPrime(-7));
+        assertFalse(MillerRabin.isPrime(0));
+        assertFalse(MillerRabin.isPrime(1));
+        assertTrue(MillerRabin.isPrime(2));
+    }
+
+    @Test
+    void testStrongPseudoprimes() {
+        // 3215031751 è pseudoprimo forte per le basi 2, 3, 5 e 7
+        assertFalse(MillerRabin.isPrime(3215031751L));
+        // 3825123056546413051 è pseudoprimo forte per tutte le basi fino a 23
+        assertFalse(MillerRabin.isPrime(3825123056546413051L));
+        assertFalse(MillerRabin.isPrime(3037000453L * 3037000493L));
+    }
+
+    @Test
+    void testLargePrimes() {
+        assertTrue(MillerRabin.isPrime(2147483647L));
+        assertTrue(MillerRabin.isPrime(1_000_000_000_000_000_003L));
+        assertTrue(MillerRabin.isPrime(9223372036854775783L));
+        assertFalse(MillerRabin.isPrime(Long.MAX_VALUE));
+    }
+}
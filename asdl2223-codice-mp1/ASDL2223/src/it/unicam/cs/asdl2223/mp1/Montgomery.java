@@ -0,0 +1,131 @@
+package it.unicam.cs.asdl2223.mp1;
+
+/**
+ * Aritmetica modulare con la moltiplicazione di Montgomery per un modulo
+ * dispari n minore di 2^63. I numeri vengono rappresentati nella forma di
+ * Montgomery {@code a * R mod n}, con {@code R = 2^64}: in questa forma un
+ * prodotto modulare richiede solo moltiplicazioni a 64 bit e nessuna divisione
+ * per n, che è l'operazione più costosa nei test di primalità e nella
+ * fattorizzazione dei {@code long}.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class Montgomery {
+
+    /*
+     * Il modulo, dispari e positivo
+     */
+    final long n;
+
+    /*
+     * L'inverso di n modulo 2^64
+     */
+    private final long nInv;
+
+    /*
+     * R^2 mod n, per portare un numero nella forma di Montgomery
+     */
+    private final long r2;
+
+    /*
+     * 1 nella forma di Montgomery, cioè R mod n
+     */
+    final long one;
+
+    /**
+     * Prepara l'aritmetica modulo n.
+     *
+     * @param n il modulo, dispari e maggiore di 1
+     */
+    Montgomery(long n) {
+        this.n = n;
+        // metodo di Newton: ogni passo raddoppia i bit corretti dell'inverso,
+        // partendo dai 3 bit di n * n = 1 mod 8
+        long inv = n;
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n * inv;
+        }
+        this.nInv = inv;
+        // -n letto senza segno vale 2^64 - n, cioè R mod n
+        this.one = Long.remainderUnsigned(-n, n);
+        // R^2 mod n raddoppiando R mod n per 64 volte
+        long x = one;
+        for (int i = 0; i < 64; i++) {
+            x = addMod(x, x);
+        }
+        this.r2 = x;
+    }
+
+    /**
+     * Porta un numero nella forma di Montgomery.
+     *
+     * @param a un numero non negativo
+     * @return a * R mod n
+     */
+    long toMontgomery(long a) {
+        return multiply(a % n, r2);
+    }
+
+    /**
+     * Riporta un numero dalla forma di Montgomery alla forma normale.
+     *
+     * @param a un numero nella forma di Montgomery
+     * @return il numero corrispondente modulo n
+     */
+    long fromMontgomery(long a) {
+        return reduce(0, a);
+    }
+
+    /**
+     * Moltiplica due numeri nella forma di Montgomery.
+     *
+     * @param a il primo fattore, minore di n
+     * @param b il secondo fattore, minore di n
+     * @return il prodotto nella forma di Montgomery
+     */
+    long multiply(long a, long b) {
+        return reduce(Math.multiplyHigh(a, b), a * b);
+    }
+
+    /**
+     * Eleva a potenza un numero nella forma di Montgomery.
+     *
+     * @param a   la base nella forma di Montgomery
+     * @param exp l'esponente, non negativo
+     * @return a^exp nella forma di Montgomery
+     */
+    long pow(long a, long exp) {
+        long result = one;
+        while (exp > 0) {
+            if ((exp & 1) != 0) result = multiply(result, a);
+            a = multiply(a, a);
+            exp >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Somma due numeri modulo n, in qualsiasi forma.
+     *
+     * @param a il primo addendo, minore di n
+     * @param b il secondo addendo, minore di n
+     * @return (a + b) mod n
+     */
+    long addMod(long a, long b) {
+        // a + b < 2^64, quindi il confronto va fatto senza segno
+        long sum = a + b;
+        return Long.compareUnsigned(sum, n) >= 0 ? sum - n : sum;
+    }
+
+    /*
+     * Riduzione di Montgomery di T = hi * 2^64 + lo, con T < n * 2^64:
+     * restituisce T / R mod n.
+     */
+    private long reduce(long hi, long lo) {
+        long m = lo * nInv;
+        // T - m * n è divisibile per R e le parti basse si annullano
+        long mnHi = Math.multiplyHigh(m, n) + ((m >> 63) & n);
+        long t = hi - mnHi;
+        return t < 0 ? t + n : t;
+    }
+}
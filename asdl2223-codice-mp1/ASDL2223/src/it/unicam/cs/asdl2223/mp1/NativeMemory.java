@@ -0,0 +1,105 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Accesso alla memoria nativa, fuori dallo heap, tramite sun.misc.Unsafe del
+ * modulo jdk.unsupported, che la JVM rende disponibile senza opzioni. A
+ * differenza dei buffer diretti, la memoria allocata qui non è limitata da
+ * {@code -XX:MaxDirectMemorySize} e viene restituita al sistema subito, con
+ * free(long).
+ * <p>
+ * Unsafe viene raggiunto con la riflessione e i suoi metodi vengono chiamati
+ * tramite MethodHandle costanti, che il compilatore JIT riduce a semplici
+ * accessi alla memoria. Nessun controllo viene fatto sugli indirizzi: chi usa
+ * questa classe deve leggere e scrivere solo memoria allocata e non ancora
+ * liberata.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class NativeMemory {
+
+    private static final MethodHandle ALLOCATE;
+
+    private static final MethodHandle FREE;
+
+    private static final MethodHandle GET_LONG;
+
+    private static final MethodHandle PUT_LONG;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ALLOCATE = lookup.findVirtual(unsafeClass, "allocateMemory", MethodType.methodType(long.class, long.class))
+                    .bindTo(unsafe);
+            FREE = lookup.findVirtual(unsafeClass, "freeMemory", MethodType.methodType(void.class, long.class))
+                    .bindTo(unsafe);
+            GET_LONG = lookup.findVirtual(unsafeClass, "getLong", MethodType.methodType(long.class, long.class))
+                    .bindTo(unsafe);
+            PUT_LONG = lookup.findVirtual(unsafeClass, "putLong",
+                    MethodType.methodType(void.class, long.class, long.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private NativeMemory() {
+    }
+
+    /*
+     * Alloca il numero di byte dato, senza azzerarli, e restituisce
+     * l'indirizzo del primo. Lancia OutOfMemoryError se il sistema non ha
+     * abbastanza memoria.
+     */
+    static long allocate(long bytes) {
+        try {
+            return (long) ALLOCATE.invokeExact(bytes);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /*
+     * Restituisce al sistema la memoria allocata all'indirizzo dato
+     */
+    static void free(long address) {
+        try {
+            FREE.invokeExact(address);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static long getLong(long address) {
+        try {
+            return (long) GET_LONG.invokeExact(address);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void putLong(long address, long value) {
+        try {
+            PUT_LONG.invokeExact(address, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /*
+     * I metodi di Unsafe lanciano solo eccezioni non controllate, che vengono
+     * rilanciate così come sono
+     */
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        throw new IllegalStateException(t);
+    }
+}
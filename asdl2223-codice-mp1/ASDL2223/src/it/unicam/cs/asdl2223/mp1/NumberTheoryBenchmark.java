@@ -0,0 +1,330 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Banco di prova per misurare le prestazioni del crivello e del
+ * fattorizzatore, così da confrontare motori diversi sullo stesso insieme di
+ * misure e accorgersi dei peggioramenti. Per ogni dimensione vengono misurate
+ * la costruzione del crivello, in sequenza, in parallelo e con la ruota,
+ * l'elenco dei primi con nextPrime() e con un cursore, le interrogazioni
+ * isPrime su numeri casuali e la fattorizzazione con i diversi motori di
+ * {@link Factoriser}, sia su numeri casuali sia su prodotti di due primi
+ * vicini alla radice.
+ * <p>
+ * Ogni misura viene eseguita in una JVM nuova, lanciata con le stesse opzioni
+ * e lo stesso classpath di questa, così che il profilo raccolto dal
+ * compilatore JIT per una misura non influenzi le altre. Nella sua JVM la
+ * misura viene ripetuta prima alcune volte senza essere registrata, per dare
+ * tempo al compilatore JIT, e poi misurata più volte. Per ogni misura vengono
+ * riportati il minimo, la mediana e la deviazione standard del tempo per
+ * operazione delle ripetizioni misurate: una differenza tra due versioni è un
+ * peggioramento solo se è grande rispetto alla deviazione standard. Vengono
+ * riportati anche i byte allocati per operazione da tutti i thread vivi,
+ * compresi quelli del pool delle misure parallele (se la JVM lo permette), e
+ * il numero e la durata delle raccolte del garbage collector avvenute durante
+ * le ripetizioni misurate. I byte allocati dai thread terminati tra l'inizio
+ * e la fine delle ripetizioni non vengono contati, per cui se il pool ne
+ * chiude qualcuno il valore può risultare più basso del vero.
+ * <p>
+ * Le dimensioni si passano come argomenti, ad esempio
+ * {@code java it.unicam.cs.asdl2223.mp1.NumberTheoryBenchmark 10000 1000000000};
+ * senza argomenti si usano le potenze di 10 da 10^4 a 10^9. Con il primo
+ * argomento {@code --stessa-jvm} tutte le misure vengono eseguite in questa
+ * JVM, più in fretta ma con risultati solo indicativi, perché ogni misura
+ * trova il compilatore JIT già allenato dalle precedenti. La tabella dei
+ * minimi fattori primi viene misurata solo fino a {@value #TABLE_LIMIT},
+ * perché occupa due byte per ogni numero e a 10^9 richiederebbe 2 GB.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public final class NumberTheoryBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+
+    private static final int MEASURED_ITERATIONS = 7;
+
+    /*
+     * Numero di operazioni per ripetizione nelle misure di isPrime e di
+     * fattorizzazione
+     */
+    private static final int OPERATIONS = 100_000;
+
+    /*
+     * Dimensione massima per cui viene costruita la tabella dei minimi
+     * fattori primi
+     */
+    private static final int TABLE_LIMIT = 100_000_000;
+
+    /*
+     * Accumula i risultati delle misure perché il compilatore JIT non possa
+     * eliminare il lavoro misurato
+     */
+    private static volatile long sink;
+
+    /*
+     * Argomento con cui una JVM figlia esegue una sola misura
+     */
+    private static final String SINGLE = "--misura";
+
+    private static final String SAME_JVM = "--stessa-jvm";
+
+    /*
+     * Inizio della riga con cui una JVM figlia restituisce il valore
+     * accumulato
+     */
+    private static final String CHECKSUM = "somma di controllo: ";
+
+    // la posizione della sola misura da eseguire, -1 per eseguirle tutte
+    private static int only = -1;
+
+    // numero di misure incontrate finora in run(int)
+    private static int index;
+
+    private NumberTheoryBenchmark() {
+    }
+
+    /*
+     * Un lavoro da misurare. Restituisce un valore che dipende da tutto il
+     * lavoro svolto.
+     */
+    private interface Workload {
+        long run();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && args[0].equals(SINGLE)) {
+            only = Integer.parseInt(args[2]);
+            run(Integer.parseInt(args[1]));
+            System.out.println(CHECKSUM + sink);
+            return;
+        }
+        boolean sameJvm = args.length > 0 && args[0].equals(SAME_JVM);
+        int skip = sameJvm ? 1 : 0;
+        int[] sizes = args.length == skip
+                ? new int[] { 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000 }
+                : new int[args.length - skip];
+        for (int i = skip; i < args.length; i++) {
+            sizes[i - skip] = Integer.parseInt(args[i].replace("_", ""));
+        }
+        System.out.printf("%-28s %12s %12s %12s %12s %14s %8s %10s%n", "misura", "dimensione", "min ns/op",
+                "mediana", "dev. std.", "byte/op", "gc", "gc ms");
+        for (int size : sizes) {
+            if (sameJvm) {
+                run(size);
+            } else {
+                // una JVM per misura, finché ne restano
+                for (int k = 0; fork(size, k); k++) {
+                }
+            }
+        }
+        // stampo il valore accumulato, così che il lavoro misurato sia usato
+        System.out.printf("%s%d%n", CHECKSUM, sink);
+    }
+
+    /*
+     * Esegue la misura in posizione k per la dimensione data in una JVM
+     * figlia, ne stampa il risultato e ne accumula la somma di controllo.
+     * Restituisce false se la misura non esiste.
+     */
+    private static boolean fork(int size, int k) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                NumberTheoryBenchmark.class.getName(), SINGLE, Integer.toString(size), Integer.toString(k)));
+        Process child = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        boolean measured = false;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(child.getInputStream(), Charset.defaultCharset()))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                if (line.startsWith(CHECKSUM)) {
+                    sink += Long.parseLong(line.substring(CHECKSUM.length()));
+                } else {
+                    System.out.println(line);
+                    measured = true;
+                }
+            }
+        }
+        if (child.waitFor() != 0) {
+            throw new IOException("La misura " + k + " per la dimensione " + size + " non è terminata.");
+        }
+        return measured;
+    }
+
+    private static void run(int size) {
+        index = 0;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        measure("crivello", size, 1, () -> new CrivelloDiEratostene(size).getCapacity());
+        measure("crivello parallelo", size, 1, () -> new CrivelloDiEratostene(size, pool).getCapacity());
+        measure("crivello ruota", size, 1,
+                () -> new CrivelloDiEratostene(size, SieveLayout.WHEEL_210).getCapacity());
+
+        CrivelloDiEratostene crivello = new CrivelloDiEratostene(size);
+        int primes = new PrimeCountIndex(crivello).totalPrimes();
+        measure("nextPrime", size, primes, () -> {
+            long sum = 0;
+            crivello.restartPrimeIteration();
+            while (crivello.hasNextPrime()) sum += crivello.nextPrime();
+            return sum;
+        });
+        measure("cursore", size, primes, () -> {
+            long sum = 0;
+            PrimeCursor cursor = crivello.primeIterator();
+            while (cursor.hasNext()) sum += cursor.nextInt();
+            return sum;
+        });
+
+        int[] values = randomValues(size, 42);
+        measure("isPrime", size, values.length, () -> {
+            long count = 0;
+            for (int n : values) if (crivello.isPrime(n)) count++;
+            return count;
+        });
+
+        Factoriser trialDivision = new Factoriser();
+        measure("getFactors", size, values.length, () -> {
+            long count = 0;
+            for (int n : values) count += trialDivision.getFactors(n).length;
+            return count;
+        });
+        FactorBuffer buffer = new FactorBuffer();
+        measure("getFactors contenitore", size, values.length, () -> {
+            long count = 0;
+            for (int n : values) count += trialDivision.getFactors(n, buffer).size();
+            return count;
+        });
+        if (size <= TABLE_LIMIT) {
+            Factoriser withTable = new Factoriser(new SmallestPrimeFactorTable(size));
+            measure("getFactors tabella", size, values.length, () -> {
+                long count = 0;
+                for (int n : values) count += withTable.getFactors(n, buffer).size();
+                return count;
+            });
+        }
+        measure("getFactors blocco parallelo", size, values.length,
+                () -> trialDivision.getFactors(values, pool).length);
+        measure("getFactors albero prodotti", size, values.length,
+                () -> trialDivision.getFactorsByProductTree(values).length);
+
+        // prodotti di due primi vicini alla radice, il caso peggiore delle
+        // divisioni per tentativi, su cui gli alberi dei prodotti convengono
+        int[] semiprimes = semiprimes(size, 42);
+        measure("getFactors semiprimi", size, semiprimes.length, () -> {
+            long count = 0;
+            for (int n : semiprimes) count += trialDivision.getFactors(n, buffer).size();
+            return count;
+        });
+        measure("albero prodotti semiprimi", size, semiprimes.length,
+                () -> trialDivision.getFactorsByProductTree(semiprimes).length);
+    }
+
+    /*
+     * Esegue il lavoro prima senza registrarlo e poi misurandolo una
+     * ripetizione alla volta, e stampa minimo, mediana e deviazione standard
+     * del tempo per operazione. Se si esegue una sola misura le altre vengono
+     * saltate.
+     */
+    private static void measure(String name, int size, long operations, Workload workload) {
+        if (only >= 0 && index++ != only) return;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += workload.run();
+        }
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long allocated = allocatedBytes();
+        double[] perOperation = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink += workload.run();
+            perOperation[i] = (double) (System.nanoTime() - start) / operations;
+        }
+        long totalOperations = operations * MEASURED_ITERATIONS;
+        String bytes = allocated < 0 ? "n/d"
+                : String.format(Locale.ROOT, "%.1f", (double) (allocatedBytes() - allocated) / totalOperations);
+        Arrays.sort(perOperation);
+        double mean = 0;
+        for (double t : perOperation) mean += t / perOperation.length;
+        double variance = 0;
+        for (double t : perOperation) variance += (t - mean) * (t - mean) / (perOperation.length - 1);
+        System.out.printf(Locale.ROOT, "%-28s %12d %12.1f %12.1f %12.1f %14s %8d %10d%n", name, size,
+                perOperation[0], perOperation[perOperation.length / 2], Math.sqrt(variance), bytes,
+                gcCount() - gcCount, gcTime() - gcTime);
+    }
+
+    /*
+     * Numeri casuali tra 2 e bound, sempre gli stessi a parità di seme
+     */
+    private static int[] randomValues(int bound, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] values = new int[OPERATIONS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(2, bound + 1);
+        }
+        return values;
+    }
+
+    /*
+     * Prodotti di due primi tra la metà della radice di bound e la radice,
+     * sempre gli stessi a parità di seme
+     */
+    private static int[] semiprimes(int bound, long seed) {
+        int root = (int) SegmentSieve.isqrt(bound);
+        int[] primes = PrimeCache.primesUpTo(root).values;
+        int from = 0;
+        while (primes[from] < root / 2) from++;
+        // l'elenco può contenere anche primi più grandi della radice
+        int to = from;
+        while (to < primes.length && primes[to] <= root) to++;
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] values = new int[OPERATIONS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = primes[random.nextInt(from, to)] * primes[random.nextInt(from, to)];
+        }
+        return values;
+    }
+
+    /*
+     * Byte allocati finora da tutti i thread vivi, -1 se la JVM non lo
+     * permette. I thread del pool restano vivi tra una ripetizione e l'altra,
+     * per cui la differenza tra due letture comprende anche il loro lavoro.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1;
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            // -1 per i thread terminati dopo la lettura degli identificatori
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean gc : collectors) count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+}
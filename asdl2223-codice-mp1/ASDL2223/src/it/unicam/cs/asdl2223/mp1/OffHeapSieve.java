@@ -0,0 +1,254 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Un crivello di Eratostene completo, come {@link CrivelloDiEratostene}, che
+ * tiene la memoria a bit fuori dallo heap della JVM, in un unico blocco di
+ * memoria nativa. La capacità non è quindi limitata dalla dimensione massima
+ * di un array e un crivello di decine di GB non fa crescere lo heap né allunga
+ * le pause del garbage collector, che non deve né copiare né esaminare i bit.
+ * <p>
+ * Viene memorizzato un bit per ogni numero dispari, per cui servono circa
+ * capacity / 16 byte. La memoria viene allocata con {@link NativeMemory} e
+ * non con i buffer diretti, per cui non è limitata dall'opzione
+ * {@code -XX:MaxDirectMemorySize} né dallo heap: basta che il sistema ne
+ * abbia abbastanza.
+ * <p>
+ * Il crivello va chiuso con close() quando non serve più, anche con un
+ * blocco try-with-resources: la memoria nativa viene restituita al sistema
+ * subito, e da quel momento tutte le operazioni lanciano
+ * IllegalStateException, anche negli altri thread. Un crivello che non viene
+ * chiuso tiene la sua memoria fino alla fine del processo, perché il garbage
+ * collector non la conosce. Ogni lettura della memoria
+ * avviene con il lock di lettura di uno StampedLock e close() libera la
+ * memoria con il lock di scrittura, per cui una lettura già iniziata in un
+ * altro thread finisce prima che la memoria venga liberata e nessuna lettura
+ * successiva la tocca. Dopo la costruzione isPrime(long) può essere chiamato
+ * da più thread, mentre l'elenco corrente dei numeri primi non è thread-safe.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class OffHeapSieve implements AutoCloseable {
+
+    /*
+     * Capacità del crivello, immutabile
+     */
+    private final long capacity;
+
+    // numero di bit significativi, uno per ogni numero dispari fino alla capacità
+    private final long bits;
+
+    /*
+     * Protegge la memoria a bit dalla chiusura: le letture prendono il lock di
+     * lettura, close() quello di scrittura
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /*
+     * Indirizzo della memoria a bit: il bit i corrisponde al numero 2 * i + 1
+     * e sta nella parola da 64 bit di indirizzo address + 8 * (i / 64). È 0
+     * dopo la chiusura, e va letto e scritto solo tenendo il lock.
+     */
+    private long address;
+
+    /*
+     * Diventa true alla chiusura, perché anche le operazioni che non leggono
+     * la memoria vedano il crivello chiuso
+     */
+    private volatile boolean closed;
+
+    //l'ultimo numero primo restituito dall'elenco corrente, 1 se l'elenco è appena partito
+    private long currentPrime = 1;
+
+    // il prossimo primo dell'elenco già cercato da hasNextPrime(), -1 se non
+    // esiste, 0 se non è ancora stato cercato
+    private long lookahead;
+
+    /**
+     * Costruisce e marca il crivello fino alla capacità data, allocando la
+     * memoria fuori dallo heap. Il crivello viene marcato un segmento alla
+     * volta in un array di appoggio grande quanto una cache L1, che poi viene
+     * copiato nella memoria nativa. La capacità deve essere almeno 2.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     * @throws OutOfMemoryError         se il sistema non ha circa
+     *                                  capacity / 16 byte di memoria
+     *                                  liberi; il limite
+     *                                  {@code -XX:MaxDirectMemorySize} non
+     *                                  si applica
+     */
+    public OffHeapSieve(long capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("La capacità del crivello deve essere almeno 2.");
+        }
+        this.capacity = capacity;
+        this.bits = (capacity + 1) >>> 1;
+        long words = (bits + 63) >>> 6;
+        int[] basePrimes = SegmentSieve.basePrimes(SegmentSieve.isqrt(capacity));
+        long[] segment = new long[SegmentSieve.SEGMENT_BITS / 64];
+        long address = NativeMemory.allocate(8 * words);
+        try {
+            for (long firstBit = 0; firstBit < bits; firstBit += SegmentSieve.SEGMENT_BITS) {
+                long lo = 2 * firstBit + 1;
+                int segmentBits = SegmentSieve.segmentBits(lo, capacity);
+                SegmentSieve.sieve(lo, segmentBits, basePrimes, segment);
+                long base = address + 8 * (firstBit >>> 6);
+                for (int j = 0, n = (segmentBits + 63) >>> 6; j < n; j++) {
+                    NativeMemory.putLong(base + 8L * j, segment[j]);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            NativeMemory.free(address);
+            throw e;
+        }
+        this.address = address;
+    }
+
+    /**
+     * Restituisce la capacità di questo crivello, cioè il numero massimo di
+     * entrate.
+     *
+     * @return la capacità di questo crivello
+     */
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Controlla se un numero è primo. Può rispondere solo se il numero passato
+     * come parametro è minore o uguale alla capacità di questo crivello.
+     *
+     * @param n il numero da controllare
+     * @return true se il numero passato è primo, false altrimenti
+     * @throws IllegalArgumentException se il numero passato {@code n}
+     *                                  eccede la capacità di questo
+     *                                  crivello o se è un numero minore di
+     *                                  2.
+     * @throws IllegalStateException    se il crivello è stato chiuso
+     */
+    public boolean isPrime(long n) {
+        if (n > capacity || n < 2) {
+            throw new IllegalArgumentException("il numero passato eccede la capacità di questo crivello o è un numero minore di 2.");
+        }
+        long stamp = lock.readLock();
+        try {
+            long address = open();
+            if ((n & 1) == 0) return n == 2;
+            long i = n >>> 1;
+            return (NativeMemory.getLong(address + 8 * (i >>> 6)) & (1L << i)) != 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Indica se l'elenco corrente dei numeri primi di questo crivello ha ancora
+     * un numero disponibile da elencare. Se il metodo restituisce false non si
+     * potrà più chiamare il metodo nextPrime() fino a quando l'elenco non viene
+     * fatto ripartire tramite il metodo restartPrimeIteration().
+     *
+     * @return true se c'è ancora un numero primo nell'elenco dei numeri primi
+     * di questo crivello, false se sono già stati elencati tutti i
+     * numeri primi di questo crivello.
+     * @throws IllegalStateException se il crivello è stato chiuso
+     */
+    public boolean hasNextPrime() {
+        if (closed) {
+            throw new IllegalStateException("Il crivello è stato chiuso.");
+        }
+        if (lookahead == 0) lookahead = findPrimeAfter(currentPrime);
+        return lookahead > 0;
+    }
+
+    /**
+     * Restituisce il prossimo numero primo in questo crivello nell'elenco
+     * corrente. L'elenco parte sempre dal numero 2 e si interrompe non appena
+     * il metodo hasNextPrime() diventa false.
+     *
+     * @return il prossimo numero primo nell'elenco corrente
+     * @throws IllegalStateException se l'elenco è terminato e non è stato
+     *                               ancora fatto ripartire o se il crivello
+     *                               è stato chiuso.
+     */
+    public long nextPrime() {
+        if (closed) {
+            throw new IllegalStateException("Il crivello è stato chiuso.");
+        }
+        long next = lookahead != 0 ? lookahead : findPrimeAfter(currentPrime);
+        if (next < 0) {
+            throw new IllegalStateException("L'elenco è terminato e non è stato ancora fatto ripartire.");
+        }
+        currentPrime = next;
+        lookahead = 0;
+        return next;
+    }
+
+    /**
+     * Fa ripartire da 2 l'elenco corrente dei numeri primi fino alla capacità
+     * di questo crivello. Questo metodo può essere chiamato in qualsiasi
+     * momento, anche se l'elenco corrente non è ancora terminato.
+     */
+    public void restartPrimeIteration() {
+        currentPrime = 1;
+        lookahead = 0;
+    }
+
+    /**
+     * Chiude il crivello e restituisce subito al sistema la memoria a bit,
+     * dopo aver atteso la fine delle letture già iniziate negli altri thread.
+     * Chiamare di nuovo questo metodo non ha effetto.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long stamp = lock.writeLock();
+        try {
+            if (address != 0) {
+                NativeMemory.free(address);
+                address = 0;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * Restituisce il più piccolo primo maggiore di n e minore o uguale alla
+     * capacità, -1 se non esiste, scorrendo una parola alla volta.
+     */
+    private long findPrimeAfter(long n) {
+        long stamp = lock.readLock();
+        try {
+            long address = open();
+            if (n < 2) return 2;
+            // il bit del dispari successivo a n
+            long i = (n + 1) >>> 1;
+            if (i >= bits) return -1;
+            long w = i >>> 6;
+            long lastWord = (bits - 1) >>> 6;
+            long word = NativeMemory.getLong(address + 8 * w) & (-1L << i);
+            while (word == 0) {
+                if (++w > lastWord) return -1;
+                word = NativeMemory.getLong(address + 8 * w);
+            }
+            i = (w << 6) + Long.numberOfTrailingZeros(word);
+            return i < bits ? 2 * i + 1 : -1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /*
+     * L'indirizzo della memoria a bit, se il crivello non è stato chiuso. Va
+     * chiamato tenendo il lock.
+     */
+    private long open() {
+        if (address == 0) {
+            throw new IllegalStateException("Il crivello è stato chiuso.");
+        }
+        return address;
+    }
+}
@@ -0,0 +1,87 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapSieveTest {
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapSieve(1));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapSieve(-5));
+    }
+
+    @Test
+    void testSameAsCrivello() {
+        // la capacità copre più di un segmento
+        int capacity = 3 * SegmentSieve.SEGMENT_BITS * 2 + 12345;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        try (OffHeapSieve s = new OffHeapSieve(capacity)) {
+            assertEquals(capacity, s.getCapacity());
+            for (int n = 2; n <= capacity; n++) {
+                assertEquals(c.isPrime(n), s.isPrime(n));
+            }
+            while (c.hasNextPrime()) {
+                assertTrue(s.hasNextPrime());
+                assertEquals(c.nextPrime(), s.nextPrime());
+            }
+            assertFalse(s.hasNextPrime());
+            assertThrows(IllegalStateException.class, () -> s.nextPrime());
+            s.restartPrimeIteration();
+            assertEquals(2, s.nextPrime());
+            assertThrows(IllegalArgumentException.class, () -> s.isPrime(capacity + 1L));
+        }
+    }
+
+    @Test
+    void testSmallCapacities() {
+        for (int capacity = 2; capacity <= 200; capacity++) {
+            CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+            try (OffHeapSieve s = new OffHeapSieve(capacity)) {
+                while (c.hasNextPrime()) {
+                    assertEquals(c.nextPrime(), s.nextPrime());
+                }
+                assertFalse(s.hasNextPrime());
+            }
+        }
+    }
+
+    @Test
+    void testClose() {
+        OffHeapSieve s = new OffHeapSieve(1000);
+        assertTrue(s.isPrime(997));
+        s.close();
+        assertThrows(IllegalStateException.class, () -> s.isPrime(997));
+        assertThrows(IllegalStateException.class, () -> s.hasNextPrime());
+        assertThrows(IllegalStateException.class, () -> s.nextPrime());
+        s.close();
+    }
+
+    @Test
+    void testCloseWhileReading() throws InterruptedException {
+        OffHeapSieve s = new OffHeapSieve(1_000_000);
+        CountDownLatch reading = new CountDownLatch(1);
+        Throwable[] thrown = new Throwable[1];
+        // il lettore interroga il crivello finché non lo vede chiuso, e va
+        // ancora quando il crivello viene chiuso
+        Thread reader = new Thread(() -> {
+            try {
+                for (long n = 2;; n = n == 1_000_000 ? 2 : n + 1) {
+                    s.isPrime(n);
+                    reading.countDown();
+                }
+            } catch (Throwable t) {
+                thrown[0] = t;
+            }
+        });
+        reader.start();
+        reading.await();
+        s.close();
+        reader.join(10_000);
+        assertFalse(reader.isAlive());
+        assertTrue(thrown[0] instanceof IllegalStateException);
+    }
+}
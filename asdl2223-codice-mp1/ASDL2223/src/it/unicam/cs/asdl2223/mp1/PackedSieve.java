@@ -0,0 +1,243 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Memoria compatta per un crivello di Eratostene: vengono memorizzati solo i
+ * candidati della disposizione scelta, un bit ciascuno, dentro un array di
+ * {@code long}. Il bit di un candidato è a 1 se e solo se il numero è primo. I
+ * primi che dividono il modulo della ruota, come il 2, vengono trattati a
+ * parte.
+ * <p>
+ * Rispetto a un array di booleani, che usa un byte per ogni numero, la
+ * memoria occupata è 16 volte minore con {@link SieveLayout#ODD} e circa 35
+ * volte minore con {@link SieveLayout#WHEEL_210}. La ricerca del prossimo
+ * numero primo esamina una parola da 64 bit alla volta.
+ * <p>
+ * La memoria può anche essere marcata in modo pigro: la costruzione calcola
+ * solo i primi base e ogni segmento viene marcato la prima volta che
+ * isPrime(int) o nextPrime(long) lo toccano. Un segmento viene prenotato con
+ * un compareAndSet dal thread che lo marca, per cui thread che toccano
+ * segmenti diversi li marcano in parallelo e solo chi tocca lo stesso
+ * segmento ne aspetta la fine. Lo stato viene pubblicato con una scrittura
+ * volatile dopo la marcatura, per cui chi vede il segmento marcato ne vede
+ * anche tutti i bit.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+class PackedSieve {
+
+    /*
+     * Stati di un segmento nella marcatura pigra
+     */
+    private static final int UNSIEVED = 0;
+
+    private static final int SIEVING = 1;
+
+    private static final int SIEVED = 2;
+
+    /*
+     * Bit dei candidati, nell'ordine della disposizione
+     */
+    final long[] words;
+
+    /*
+     * Il numero più grande rappresentato
+     */
+    final int capacity;
+
+    // numero di bit significativi in words
+    final int bits;
+
+    /*
+     * La disposizione dei bit
+     */
+    final SieveLayout layout;
+
+    /*
+     * Primi dispari fino alla radice della capacità, come interi senza segno
+     */
+    private final int[] basePrimes;
+
+    /*
+     * Per la marcatura pigra, la posizione s contiene lo stato del segmento s,
+     * UNSIEVED, SIEVING o SIEVED; null se tutti i segmenti sono stati marcati
+     * nella costruzione
+     */
+    private final AtomicIntegerArray sieved;
+
+    /**
+     * Costruisce e marca la memoria del crivello fino alla capacità data. Il
+     * crivello viene marcato un segmento alla volta, così che i multipli di
+     * ogni primo vengano cancellati su una porzione di memoria che sta in
+     * cache. Se viene passato un pool i segmenti vengono marcati in parallelo:
+     * tutti usano la stessa lista di primi base e scrivono parole diverse
+     * dell'array, quindi il risultato è identico a quello della costruzione
+     * sequenziale.
+     *
+     * @param capacity il numero più grande da rappresentare, almeno 2
+     * @param layout   la disposizione dei bit
+     * @param pool     il pool su cui marcare i segmenti, null per marcarli
+     *                 in sequenza nel thread corrente
+     */
+    PackedSieve(int capacity, SieveLayout layout, ForkJoinPool pool) {
+        this(capacity, layout, false);
+        if (pool == null) {
+            for (int segment = 0; segment < segments(); segment++) {
+                sieveSegment(segment, basePrimes);
+            }
+        } else {
+            pool.invoke(new SieveTask(0, segments(), basePrimes));
+        }
+    }
+
+    private PackedSieve(int capacity, SieveLayout layout, boolean lazy) {
+        this.capacity = capacity;
+        this.layout = layout;
+        this.bits = (int) layout.bitIndex(capacity + 1L);
+        this.words = new long[(bits + 63) >>> 6];
+        this.basePrimes = SegmentSieve.basePrimes(SegmentSieve.isqrt(capacity));
+        this.sieved = lazy ? new AtomicIntegerArray(segments()) : null;
+    }
+
+    /**
+     * Prepara la memoria del crivello fino alla capacità data senza marcarla:
+     * vengono calcolati solo i primi fino alla radice della capacità e ogni
+     * segmento viene marcato al primo accesso.
+     *
+     * @param capacity il numero più grande da rappresentare, almeno 2
+     * @param layout   la disposizione dei bit
+     * @return la memoria del crivello, da marcare al momento
+     */
+    static PackedSieve lazy(int capacity, SieveLayout layout) {
+        return new PackedSieve(capacity, layout, true);
+    }
+
+    /**
+     * @return il numero di segmenti in cui è diviso il crivello
+     */
+    int segments() {
+        return (bits + SegmentSieve.SEGMENT_BITS - 1) / SegmentSieve.SEGMENT_BITS;
+    }
+
+    /**
+     * Marca uno dei segmenti del crivello. Ogni segmento scrive solo le proprie
+     * parole, quindi segmenti diversi possono essere marcati in qualsiasi
+     * ordine.
+     *
+     * @param segment    l'indice del segmento da marcare
+     * @param basePrimes i primi dispari fino alla radice della capacità
+     */
+    void sieveSegment(int segment, int[] basePrimes) {
+        int firstBit = segment * SegmentSieve.SEGMENT_BITS;
+        int segmentBits = Math.min(SegmentSieve.SEGMENT_BITS, bits - firstBit);
+        layout.sieve(words, firstBit, segmentBits, basePrimes);
+    }
+
+    /**
+     * Controlla se un numero compreso tra 2 e la capacità è primo, senza
+     * controllare i limiti.
+     *
+     * @param n il numero da controllare
+     * @return true se il numero è primo, false altrimenti
+     */
+    boolean isPrime(int n) {
+        if (!layout.isCandidate(n)) return layout.isSmallPrime(n);
+        int i = (int) layout.bitIndex(n);
+        if (sieved != null) ensureSieved(i / SegmentSieve.SEGMENT_BITS);
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Restituisce il più piccolo numero primo maggiore o uguale a from e
+     * minore o uguale alla capacità.
+     *
+     * @param from il numero da cui iniziare la ricerca
+     * @return il primo trovato, -1 se non ci sono altri primi fino alla
+     * capacità
+     */
+    int nextPrime(long from) {
+        if (from > capacity) return -1;
+        int small = layout.nextSmallPrime(from);
+        if (small > 0) return small <= capacity ? small : -1;
+        int first = (int) layout.bitIndex(from);
+        if (sieved != null) {
+            // cerco un segmento alla volta, marcandolo prima di leggerlo
+            for (int segment = first / SegmentSieve.SEGMENT_BITS; segment < segments(); segment++) {
+                ensureSieved(segment);
+                int end = (int) Math.min(bits, (segment + 1L) * SegmentSieve.SEGMENT_BITS);
+                int i = SegmentSieve.nextSetBit(words, Math.max(first, segment * SegmentSieve.SEGMENT_BITS), end);
+                if (i >= 0) return layout.value(i);
+            }
+            return -1;
+        }
+        int i = SegmentSieve.nextSetBit(words, first, bits);
+        return i < 0 ? -1 : layout.value(i);
+    }
+
+    /**
+     * Marca tutti i segmenti che non sono ancora stati marcati, per le
+     * strutture che leggono direttamente tutte le parole. Non ha effetto se la
+     * memoria è stata marcata nella costruzione.
+     */
+    void materialise() {
+        if (sieved == null) return;
+        for (int segment = 0; segment < segments(); segment++) {
+            ensureSieved(segment);
+        }
+    }
+
+    /*
+     * Marca il segmento se non è ancora stato marcato. Il controllo è una
+     * lettura volatile, per cui dopo la prima marcatura l'accesso costa quanto
+     * una lettura normale. Il thread che prenota il segmento lo marca, gli
+     * altri che lo toccano nel frattempo cedono il processore finché non è
+     * pronto: la marcatura di un segmento dura pochi microsecondi.
+     */
+    private void ensureSieved(int segment) {
+        int state;
+        while ((state = sieved.get(segment)) != SIEVED) {
+            if (state == UNSIEVED && sieved.compareAndSet(segment, UNSIEVED, SIEVING)) {
+                try {
+                    sieveSegment(segment, basePrimes);
+                    sieved.set(segment, SIEVED);
+                } finally {
+                    // se la marcatura fallisce il segmento torna libero
+                    sieved.compareAndSet(segment, SIEVING, UNSIEVED);
+                }
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    /*
+     * Marca i segmenti da from (incluso) a to (escluso), dividendo
+     * l'intervallo a metà finché non resta un solo segmento.
+     */
+    private class SieveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int[] basePrimes;
+
+        SieveTask(int from, int to, int[] basePrimes) {
+            this.from = from;
+            this.to = to;
+            this.basePrimes = basePrimes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                sieveSegment(from, basePrimes);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SieveTask(from, mid, basePrimes), new SieveTask(mid, to, basePrimes));
+            }
+        }
+    }
+}
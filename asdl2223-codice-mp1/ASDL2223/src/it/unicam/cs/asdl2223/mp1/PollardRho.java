@@ -0,0 +1,101 @@
+package it.unicam.cs.asdl2223.mp1;
+
+/**
+ * Ricerca di un fattore non banale di un numero composto con l'algoritmo rho
+ * di Pollard nella variante di Brent. La successione pseudocasuale
+ * {@code x -> x^2 + c mod n} viene calcolata nella forma di Montgomery e i
+ * massimi comun divisori vengono calcolati una volta ogni
+ * {@value #BATCH} passi sul prodotto delle differenze, per cui il costo è
+ * dominato dalle moltiplicazioni modulari. Per un numero a 64 bit servono in
+ * media circa n^(1/4) passi.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class PollardRho {
+
+    /*
+     * Numero di differenze moltiplicate tra loro prima di calcolare un MCD
+     */
+    private static final int BATCH = 128;
+
+    private PollardRho() {
+    }
+
+    /**
+     * Trova un fattore non banale di un numero dispari composto.
+     *
+     * @param n il numero da fattorizzare, dispari, composto e minore di 2^63
+     * @return un divisore d di n con 1 < d < n
+     */
+    static long findFactor(long n) {
+        Montgomery m = new Montgomery(n);
+        // se una costante c non funziona si riprova con la successiva
+        for (long c = 1; ; c++) {
+            long d = brent(m, m.toMontgomery(c));
+            if (d != n) return d;
+        }
+    }
+
+    /*
+     * Un tentativo dell'algoritmo di Brent con la costante c, nella forma di
+     * Montgomery. Restituisce un divisore di n maggiore di 1, che può essere n
+     * stesso se il tentativo fallisce.
+     */
+    private static long brent(Montgomery m, long c) {
+        long n = m.n;
+        long y = m.toMontgomery(2);
+        long x = y;
+        long ys = y;
+        long q = m.one;
+        long g = 1;
+        for (long r = 1; g == 1; r <<= 1) {
+            x = y;
+            for (long i = 0; i < r; i++) {
+                y = m.addMod(m.multiply(y, y), c);
+            }
+            for (long k = 0; k < r && g == 1; k += BATCH) {
+                ys = y;
+                long steps = Math.min(BATCH, r - k);
+                for (long i = 0; i < steps; i++) {
+                    y = m.addMod(m.multiply(y, y), c);
+                    q = m.multiply(q, x > y ? x - y : y - x);
+                }
+                g = gcd(q, n);
+            }
+        }
+        if (g == n) {
+            // il prodotto ha inglobato tutti i fattori: ripeto l'ultimo blocco
+            // un passo alla volta
+            do {
+                ys = m.addMod(m.multiply(ys, ys), c);
+                g = gcd(x > ys ? x - ys : ys - x, n);
+            } while (g == 1);
+        }
+        return g;
+    }
+
+    /**
+     * Calcola il massimo comun divisore di due numeri non negativi con
+     * l'algoritmo binario di Stein.
+     *
+     * @param a il primo numero
+     * @param b il secondo numero
+     * @return il massimo comun divisore di a e b
+     */
+    static long gcd(long a, long b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        }
+        return a << shift;
+    }
+}
@@ -0,0 +1,69 @@
+package it.unicam.cs.asdl2223.mp1;
+
+/**
+ * Un servizio di primalità che risponde per qualsiasi numero {@code long}. I
+ * numeri che non eccedono la capacità del crivello associato vengono
+ * controllati leggendo direttamente la sua memoria a bit, quelli più grandi
+ * con il test di Miller-Rabin deterministico. In questo modo il crivello può
+ * essere dimensionato sull'intervallo dei numeri richiesti più spesso invece
+ * che sul caso peggiore.
+ * <p>
+ * Il servizio non ha stato modificabile, per cui può essere usato da più
+ * thread contemporaneamente.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class PrimalityService {
+
+    /*
+     * Crivello che copre l'intervallo dei numeri richiesti più spesso
+     */
+    private final CrivelloDiEratostene crivello;
+
+    /**
+     * Crea il servizio sul crivello dato.
+     *
+     * @param crivello il crivello da usare per i numeri fino alla sua
+     *                 capacità
+     * @throws NullPointerException se il crivello passato è null
+     */
+    public PrimalityService(CrivelloDiEratostene crivello) {
+        if (crivello == null) {
+            throw new NullPointerException("Il crivello passato è nullo.");
+        }
+        this.crivello = crivello;
+    }
+
+    /**
+     * Crea il servizio costruendo un crivello fino alla capacità data.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     */
+    public PrimalityService(int capacity) {
+        this(new CrivelloDiEratostene(capacity));
+    }
+
+    /**
+     * Controlla se un numero è primo. A differenza di
+     * {@link CrivelloDiEratostene#isPrime(int)} non ci sono limiti sul numero
+     * passato.
+     *
+     * @param n il numero da controllare
+     * @return true se il numero passato è primo, false altrimenti, anche per i
+     * numeri minori di 2
+     */
+    public boolean isPrime(long n) {
+        if (n < 2) return false;
+        if (n <= crivello.getCapacity()) return crivello.bits().isPrime((int) n);
+        return MillerRabin.isPrime(n);
+    }
+
+    /**
+     * @return il crivello usato per i numeri fino alla sua capacità
+     */
+    public CrivelloDiEratostene getCrivello() {
+        return crivello;
+    }
+}
@@ -0,0 +1,35 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PrimalityServiceTest {
+
+    @Test
+    void testInvalid() {
+        assertThrows(NullPointerException.class, () -> new PrimalityService(null));
+        assertThrows(IllegalArgumentException.class, () -> new PrimalityService(1));
+    }
+
+    @Test
+    void testAcrossCapacity() {
+        // il crivello copre solo fino a 1000, oltre risponde Miller-Rabin
+        PrimalityService s = new PrimalityService(1000);
+        CrivelloDiEratostene c = new CrivelloDiEratostene(100_000);
+        for (int n = 2; n <= 100_000; n++) {
+            assertEquals(c.isPrime(n), s.isPrime(n));
+        }
+        assertFalse(s.isPrime(1));
+        assertFalse(s.isPrime(-3));
+    }
+
+    @Test
+    void testLargeValues() {
+        PrimalityService s = new PrimalityService(1 << 16);
+        assertTrue(s.isPrime(Integer.MAX_VALUE));
+        assertTrue(s.isPrime(9223372036854775783L));
+        assertFalse(s.isPrime(Long.MAX_VALUE));
+        assertFalse(s.isPrime(4611686014132420609L));
+    }
+}
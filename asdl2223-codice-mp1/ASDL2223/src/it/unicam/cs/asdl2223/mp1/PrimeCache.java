@@ -0,0 +1,79 @@
+package it.unicam.cs.asdl2223.mp1;
+
+/**
+ * Elenco dei numeri primi condiviso da tutto il processo, che cresce quando
+ * viene richiesto un limite più grande di quello già calcolato. Per fattorizzare
+ * un {@code int} con le divisioni per tentativi servono solo i primi fino a
+ * 46340, quindi l'elenco resta piccolo e viene costruito poche volte.
+ * <p>
+ * L'elenco corrente è un oggetto immutabile pubblicato tramite un campo
+ * volatile: i lettori non prendono mai un lock e vedono sempre un elenco
+ * completo. Solo la crescita è sincronizzata, così due thread non costruiscono
+ * lo stesso crivello insieme.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class PrimeCache {
+
+    /*
+     * Primo limite calcolato, per non ricostruire l'elenco per ogni piccolo
+     * incremento
+     */
+    private static final int INITIAL_LIMIT = 1024;
+
+    /*
+     * Elenco corrente, sostituito per intero a ogni crescita
+     */
+    private static volatile Primes current = new Primes(INITIAL_LIMIT);
+
+    private PrimeCache() {
+    }
+
+    /**
+     * Restituisce un elenco che contiene almeno tutti i numeri primi fino al
+     * limite dato. L'elenco può contenere anche primi più grandi del limite.
+     * L'array restituito è condiviso e non deve essere modificato.
+     *
+     * @param limit il limite fino a cui servono i numeri primi
+     * @return l'elenco crescente dei numeri primi, almeno fino a limit
+     */
+    static Primes primesUpTo(int limit) {
+        Primes primes = current;
+        if (primes.limit >= limit) return primes;
+        return grow(limit);
+    }
+
+    /*
+     * Ricostruisce l'elenco almeno fino a limit, raddoppiando il limite
+     * precedente per ammortizzare il costo delle crescite successive.
+     */
+    private static synchronized Primes grow(int limit) {
+        Primes primes = current;
+        if (primes.limit >= limit) return primes;
+        int newLimit = (int) Math.min(Integer.MAX_VALUE, Math.max(limit, 2L * primes.limit));
+        primes = new Primes(newLimit);
+        current = primes;
+        return primes;
+    }
+
+    /**
+     * Un elenco immutabile dei numeri primi fino a un limite.
+     */
+    static final class Primes {
+
+        /*
+         * Il limite fino a cui l'elenco è completo
+         */
+        final int limit;
+
+        /*
+         * I numeri primi fino al limite, in ordine crescente
+         */
+        final int[] values;
+
+        private Primes(int limit) {
+            this.limit = limit;
+            this.values = new CrivelloDiEratostene(limit).primes().toArray();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+
+/**
+ * Un indice ausiliario su un crivello di Eratostene che permette di contare i
+ * numeri primi minori o uguali a un certo n, cioè di calcolare pi(n), in tempo
+ * costante e di trovare il k-esimo numero primo in tempo logaritmico.
+ * <p>
+ * La memoria a bit del crivello viene divisa in blocchi di 8 parole da 64 bit.
+ * Per ogni blocco l'indice memorizza quanti bit a 1, cioè quanti numeri primi
+ * con un bit, si trovano nei blocchi precedenti; i primi che dividono il
+ * modulo della ruota del crivello vengono contati a parte. Un conteggio richiede quindi una
+ * lettura dell'indice più al massimo 8 conteggi di bit, mentre la ricerca del
+ * k-esimo primo fa una ricerca binaria sui blocchi. L'indice occupa un intero
+ * ogni 512 bit, cioè circa il 6% della memoria del crivello.
+ * <p>
+ * L'indice e il crivello vengono solo letti dopo la costruzione, per cui
+ * possono essere usati da più thread contemporaneamente.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class PrimeCountIndex {
+
+    /*
+     * Numero di parole da 64 bit di un blocco, potenza di 2
+     */
+    private static final int BLOCK_WORDS = 8;
+
+    /*
+     * Memoria a bit del crivello indicizzato
+     */
+    private final PackedSieve crivello;
+
+    /*
+     * La posizione b contiene il numero di bit a 1 nelle parole dei blocchi da
+     * 0 a b - 1. L'ultima posizione contiene il numero totale di bit a 1.
+     */
+    private final int[] blockRanks;
+
+    /**
+     * Costruisce l'indice sul crivello dato, contando una volta sola i bit di
+     * tutte le sue parole.
+     *
+     * @param crivello il crivello da indicizzare
+     * @throws NullPointerException se il crivello passato è null
+     */
+    public PrimeCountIndex(CrivelloDiEratostene crivello) {
+        if (crivello == null) {
+            throw new NullPointerException("Il crivello passato è nullo.");
+        }
+        this.crivello = crivello.bits();
+        // un crivello pigro viene marcato tutto, perché l'indice conta i bit
+        // di tutte le parole
+        this.crivello.materialise();
+        long[] words = this.crivello.words;
+        int blocks = (words.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+        this.blockRanks = new int[blocks + 1];
+        int rank = 0;
+        for (int w = 0; w < words.length; w++) {
+            if (w % BLOCK_WORDS == 0) blockRanks[w / BLOCK_WORDS] = rank;
+            rank += Long.bitCount(words[w]);
+        }
+        blockRanks[blocks] = rank;
+    }
+
+    /**
+     * Conta i numeri primi minori o uguali a n.
+     *
+     * @param n il numero fino a cui contare, al massimo la capacità del
+     *          crivello
+     * @return il numero di primi minori o uguali a n, 0 se n è minore di 2
+     * @throws IllegalArgumentException se n eccede la capacità del crivello
+     */
+    public int primeCount(int n) {
+        if (n > crivello.capacity) {
+            throw new IllegalArgumentException("Il numero passato eccede la capacità del crivello.");
+        }
+        if (n < 2) return 0;
+        // conto i bit dei candidati minori o uguali a n, più i primi che
+        // dividono il modulo della ruota
+        int i = (int) crivello.layout.bitIndex(n + 1L);
+        int w = i >>> 6;
+        long[] words = crivello.words;
+        int rank = blockRanks[w / BLOCK_WORDS];
+        for (int j = w & -BLOCK_WORDS; j < w; j++) {
+            rank += Long.bitCount(words[j]);
+        }
+        if ((i & 63) != 0) rank += Long.bitCount(words[w] & ((1L << i) - 1));
+        return rank + crivello.layout.smallPrimeCount(n);
+    }
+
+    /**
+     * Restituisce il k-esimo numero primo, contando da 1: il primo numero
+     * primo è 2, il secondo è 3 e così via.
+     *
+     * @param k la posizione del numero primo cercato, almeno 1
+     * @return il k-esimo numero primo
+     * @throws IllegalArgumentException se k è minore di 1 o se il crivello
+     *                                  contiene meno di k numeri primi
+     */
+    public int nthPrime(int k) {
+        if (k < 1 || k > totalPrimes()) {
+            throw new IllegalArgumentException("Il crivello non contiene il numero primo in posizione " + k + ".");
+        }
+        int small = smallPrimes();
+        if (k <= small) return crivello.layout.smallPrimes[k - 1];
+        // cerco il (k - small)-esimo bit a 1, cioè il blocco b con
+        // blockRanks[b] < k - small <= blockRanks[b + 1]
+        int target = k - small;
+        int b = Arrays.binarySearch(blockRanks, target);
+        if (b < 0) b = -b - 2;
+        else while (blockRanks[b] == target) b--;
+        // target diventa la posizione del bit cercato dentro il blocco
+        target -= blockRanks[b];
+        long[] words = crivello.words;
+        int w = b * BLOCK_WORDS;
+        int count = Long.bitCount(words[w]);
+        while (count < target) {
+            target -= count;
+            count = Long.bitCount(words[++w]);
+        }
+        long word = words[w];
+        for (int j = 1; j < target; j++) {
+            word &= word - 1;
+        }
+        int i = (w << 6) + Long.numberOfTrailingZeros(word);
+        return crivello.layout.value(i);
+    }
+
+    /**
+     * @return il numero totale di numeri primi del crivello
+     */
+    public int totalPrimes() {
+        return blockRanks[blockRanks.length - 1] + smallPrimes();
+    }
+
+    /*
+     * Quanti primi che dividono il modulo della ruota sono nel crivello
+     */
+    private int smallPrimes() {
+        return crivello.layout.smallPrimeCount(crivello.capacity);
+    }
+}
@@ -0,0 +1,81 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PrimeCountIndexTest {
+
+    @Test
+    void testPrimeCountSmall() {
+        PrimeCountIndex index = new PrimeCountIndex(new CrivelloDiEratostene(100));
+        assertEquals(0, index.primeCount(1));
+        assertEquals(1, index.primeCount(2));
+        assertEquals(2, index.primeCount(3));
+        assertEquals(2, index.primeCount(4));
+        assertEquals(4, index.primeCount(10));
+        assertEquals(25, index.primeCount(100));
+        assertEquals(25, index.totalPrimes());
+        assertThrows(IllegalArgumentException.class, () -> index.primeCount(101));
+    }
+
+    @Test
+    void testNthPrimeSmall() {
+        int[] primes = new int[] { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37,
+                41, 43, 47, 53, 59, 61, 67, 71, 73, 79, 83, 89, 97 };
+        PrimeCountIndex index = new PrimeCountIndex(new CrivelloDiEratostene(100));
+        for (int k = 1; k <= primes.length; k++) {
+            assertEquals(primes[k - 1], index.nthPrime(k));
+        }
+        assertThrows(IllegalArgumentException.class, () -> index.nthPrime(0));
+        assertThrows(IllegalArgumentException.class, () -> index.nthPrime(26));
+    }
+
+    @Test
+    void testSameAsIteration() {
+        CrivelloDiEratostene c = new CrivelloDiEratostene(200_000);
+        PrimeCountIndex index = new PrimeCountIndex(c);
+        int count = 0;
+        int previous = 1;
+        while (c.hasNextPrime()) {
+            int p = c.nextPrime();
+            for (int n = previous + 1; n < p; n++) {
+                assertEquals(count, index.primeCount(n));
+            }
+            count++;
+            assertEquals(count, index.primeCount(p));
+            assertEquals(p, index.nthPrime(count));
+            previous = p;
+        }
+        assertEquals(count, index.totalPrimes());
+    }
+
+    @Test
+    void testLargeValues() {
+        PrimeCountIndex index = new PrimeCountIndex(new CrivelloDiEratostene(10_000_000));
+        assertEquals(664579, index.primeCount(10_000_000));
+        assertEquals(78498, index.primeCount(1_000_000));
+        assertEquals(104729, index.nthPrime(10_000));
+        assertEquals(9999991, index.nthPrime(664579));
+    }
+
+    @Test
+    void testWheelLayout() {
+        for (int capacity = 2; capacity <= 300; capacity++) {
+            PrimeCountIndex odd = new PrimeCountIndex(new CrivelloDiEratostene(capacity));
+            PrimeCountIndex wheel = new PrimeCountIndex(new CrivelloDiEratostene(capacity, SieveLayout.WHEEL_210));
+            assertEquals(odd.totalPrimes(), wheel.totalPrimes());
+            for (int n = 0; n <= capacity; n++) {
+                assertEquals(odd.primeCount(n), wheel.primeCount(n));
+            }
+            for (int k = 1; k <= odd.totalPrimes(); k++) {
+                assertEquals(odd.nthPrime(k), wheel.nthPrime(k));
+            }
+        }
+        PrimeCountIndex index = new PrimeCountIndex(new CrivelloDiEratostene(10_000_000, SieveLayout.WHEEL_210));
+        assertEquals(664579, index.primeCount(10_000_000));
+        assertEquals(78498, index.primeCount(1_000_000));
+        assertEquals(104729, index.nthPrime(10_000));
+        assertEquals(9999991, index.nthPrime(664579));
+    }
+}
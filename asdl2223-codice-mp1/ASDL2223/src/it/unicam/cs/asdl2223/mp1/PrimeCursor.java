@@ -0,0 +1,81 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Un cursore elenca in ordine crescente i numeri primi di un crivello compresi
+ * in un intervallo. Il prossimo numero primo viene cercato una sola volta,
+ * subito dopo aver restituito il precedente, scorrendo la memoria a bit del
+ * crivello una parola da 64 bit alla volta, per cui hasNext() costa O(1).
+ * <p>
+ * Tutto lo stato dell'elenco è contenuto nel cursore, mentre il crivello viene
+ * solo letto. Più thread possono quindi scorrere lo stesso crivello allo
+ * stesso tempo, ognuno con il proprio cursore. Un singolo cursore invece non è
+ * thread-safe.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class PrimeCursor implements PrimitiveIterator.OfInt {
+
+    /*
+     * Memoria del crivello da cui leggere i numeri primi
+     */
+    private final PackedSieve crivello;
+
+    /*
+     * Ultimo numero, incluso, dell'intervallo da elencare
+     */
+    private final int to;
+
+    // il prossimo numero primo da restituire, -1 se l'elenco è terminato
+    private int next;
+
+    /*
+     * Crea un cursore sui primi del crivello compresi tra from e to, estremi
+     * inclusi. to non deve superare la capacità del crivello.
+     */
+    PrimeCursor(PackedSieve crivello, int from, int to) {
+        this.crivello = crivello;
+        this.to = to;
+        this.next = find(from);
+    }
+
+    /**
+     * Indica se ci sono ancora numeri primi da elencare.
+     *
+     * @return true se c'è ancora un numero primo nell'intervallo, false
+     * altrimenti
+     */
+    @Override
+    public boolean hasNext() {
+        return next > 0;
+    }
+
+    /**
+     * Restituisce il prossimo numero primo dell'intervallo.
+     *
+     * @return il prossimo numero primo
+     * @throws NoSuchElementException se sono già stati elencati tutti i
+     *                                numeri primi dell'intervallo
+     */
+    @Override
+    public int nextInt() {
+        int result = next;
+        if (result < 0) {
+            throw new NoSuchElementException("Sono già stati elencati tutti i numeri primi dell'intervallo.");
+        }
+        next = find(result + 1L);
+        return result;
+    }
+
+    /*
+     * Restituisce il più piccolo primo maggiore o uguale a from e minore o
+     * uguale a to, -1 se non esiste.
+     */
+    private int find(long from) {
+        if (from > to) return -1;
+        int p = crivello.nextPrime(from);
+        return p > to ? -1 : p;
+    }
+}
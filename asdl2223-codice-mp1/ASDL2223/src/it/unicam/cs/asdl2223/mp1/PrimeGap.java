@@ -0,0 +1,84 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static java.util.Objects.hash;
+
+/**
+ * Un oggetto di questa classe rappresenta la distanza tra due numeri primi
+ * consecutivi, individuata dal primo dei due e dalla lunghezza del salto.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class PrimeGap {
+
+    /*
+     * Il numero primo dopo cui inizia la distanza
+     */
+    private final long prime;
+
+    /*
+     * Differenza tra il primo successivo e prime, almeno 1
+     */
+    private final long length;
+
+    /**
+     * Crea la distanza che parte dal numero primo dato.
+     *
+     * @param prime  il numero primo dopo cui inizia la distanza
+     * @param length la differenza con il numero primo successivo, almeno 1
+     * @throws IllegalArgumentException se prime è minore di 2 o se length è
+     *                                  minore di 1
+     */
+    public PrimeGap(long prime, long length) {
+        if (prime < 2 || length < 1) {
+            throw new IllegalArgumentException("Il primo è minore di 2 oppure la lunghezza è minore di 1.");
+        }
+        this.prime = prime;
+        this.length = length;
+    }
+
+    /**
+     * @return il numero primo dopo cui inizia la distanza
+     */
+    public long getPrime() {
+        return prime;
+    }
+
+    /**
+     * @return la differenza tra il numero primo successivo e getPrime()
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return il numero primo successivo, con cui finisce la distanza
+     */
+    public long getNextPrime() {
+        return prime + length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(prime, length);
+    }
+
+    /*
+     * Due distanze sono uguali se partono dallo stesso primo con la stessa
+     * lunghezza
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PrimeGap)) return false;
+        if (this == obj) return true;
+
+        return this.prime == ((PrimeGap) obj).prime && this.length == ((PrimeGap) obj).length;
+    }
+
+    /*
+     * La distanza viene resa con la stringa prime+length
+     */
+    @Override
+    public String toString() {
+        return this.prime + "+" + this.length;
+    }
+}
@@ -0,0 +1,188 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Un generatore senza capacità che elenca in ordine crescente tutti i numeri
+ * primi, marcando una finestra alla volta solo quando l'elenco la raggiunge.
+ * In memoria ci sono soltanto la finestra corrente, grande quanto una cache
+ * L1, e i primi base fino alla radice dell'ultimo numero della finestra.
+ * Quando i primi base non bastano più vengono estesi marcando il tratto
+ * mancante con i primi base già noti, raddoppiando ogni volta il limite: la
+ * memoria cresce quindi come la radice del punto raggiunto, e resta sotto i
+ * 400 KB anche dopo aver elencato i primi fino a 10^12.
+ * <p>
+ * L'elenco termina solo con l'ultimo primo minore di {@link Long#MAX_VALUE}.
+ * Un oggetto di questa classe non è thread-safe.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class PrimeGenerator implements PrimitiveIterator.OfLong {
+
+    /*
+     * Limite iniziale dei primi base, il cui quadrato copre già i numeri fino
+     * a 2^32
+     */
+    private static final long INITIAL_BASE_LIMIT = 1 << 16;
+
+    /*
+     * Limite massimo dei primi base, memorizzati come interi senza segno: la
+     * sua radice supera Long.MAX_VALUE
+     */
+    private static final long MAX_BASE_LIMIT = 0xFFFF_FFFFL;
+
+    /*
+     * Primi dispari fino a baseLimit, come interi senza segno
+     */
+    private int[] basePrimes;
+
+    // il limite fino a cui basePrimes è completo
+    private long baseLimit;
+
+    /*
+     * Finestra corrente: il bit i è a 1 se e solo se windowLo + 2 * i è primo
+     */
+    private final long[] window = new long[SegmentSieve.SEGMENT_BITS / 64];
+
+    // primo numero, dispari, della finestra corrente
+    private long windowLo;
+
+    // numero di bit significativi della finestra corrente, 0 se l'elenco è finito
+    private int windowBits;
+
+    // il prossimo numero primo da restituire, -1 se l'elenco è terminato
+    private long next;
+
+    /**
+     * Prepara l'elenco di tutti i numeri primi a partire da 2.
+     */
+    public PrimeGenerator() {
+        this(2);
+    }
+
+    /**
+     * Prepara l'elenco di tutti i numeri primi maggiori o uguali a from, ad
+     * esempio per riprendere un elenco interrotto.
+     *
+     * @param from il numero da cui iniziare, non negativo
+     * @throws IllegalArgumentException se from è negativo
+     */
+    public PrimeGenerator(long from) {
+        if (from < 0) {
+            throw new IllegalArgumentException("Il numero da cui iniziare non può essere negativo.");
+        }
+        this.baseLimit = INITIAL_BASE_LIMIT;
+        this.basePrimes = SegmentSieve.basePrimes(baseLimit);
+        if (from <= 2) {
+            // 2 è l'unico primo pari e viene restituito prima delle finestre
+            this.next = 2;
+            load(3);
+        } else {
+            load(from | 1);
+            this.next = find(0);
+        }
+    }
+
+    /**
+     * Restituisce lo stream infinito e ordinato di tutti i numeri primi. Lo
+     * stream va limitato, ad esempio con {@link LongStream#limit(long)} o con
+     * {@link LongStream#takeWhile(java.util.function.LongPredicate)}.
+     *
+     * @return lo stream dei numeri primi
+     */
+    public static LongStream primes() {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(new PrimeGenerator(),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Indica se ci sono ancora numeri primi da elencare, cioè se non è ancora
+     * stato restituito l'ultimo primo minore di {@link Long#MAX_VALUE}.
+     *
+     * @return true se c'è ancora un numero primo, false altrimenti
+     */
+    @Override
+    public boolean hasNext() {
+        return next >= 0;
+    }
+
+    /**
+     * Restituisce il prossimo numero primo.
+     *
+     * @return il prossimo numero primo
+     * @throws NoSuchElementException se è già stato restituito l'ultimo primo
+     *                                minore di {@link Long#MAX_VALUE}
+     */
+    @Override
+    public long nextLong() {
+        long result = next;
+        if (result < 0) {
+            throw new NoSuchElementException("Sono già stati elencati tutti i numeri primi rappresentabili.");
+        }
+        // dopo 2 si parte dal primo bit della finestra, altrimenti dal bit
+        // successivo a quello appena restituito
+        next = find(result == 2 ? 0 : (int) ((result - windowLo) >>> 1) + 1);
+        return result;
+    }
+
+    /*
+     * Cerca il prossimo primo a partire dal bit from della finestra corrente,
+     * marcando le finestre successive finché non ne trova uno. Restituisce -1
+     * quando non ci sono più numeri rappresentabili.
+     */
+    private long find(int from) {
+        while (windowBits > 0) {
+            int i = SegmentSieve.nextSetBit(window, from, windowBits);
+            if (i >= 0) return windowLo + 2L * i;
+            long last = windowLo + 2L * (windowBits - 1);
+            if (last == Long.MAX_VALUE) {
+                windowBits = 0;
+            } else {
+                load(last + 2);
+                from = 0;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Marca la finestra che parte dal numero dispari lo, estendendo prima i
+     * primi base se non arrivano alla radice del suo ultimo numero.
+     */
+    private void load(long lo) {
+        windowLo = lo;
+        windowBits = SegmentSieve.segmentBits(lo, Long.MAX_VALUE);
+        extendBasePrimes(SegmentSieve.isqrt(lo + 2L * (windowBits - 1)));
+        SegmentSieve.sieve(lo, windowBits, basePrimes, window);
+    }
+
+    /*
+     * Estende i primi base almeno fino a limit, marcando i dispari tra il
+     * vecchio e il nuovo limite con i primi base già noti. Il nuovo limite è
+     * al più il quadrato del vecchio, per cui i primi già noti bastano.
+     */
+    private void extendBasePrimes(long limit) {
+        if (limit <= baseLimit) return;
+        long newLimit = Math.min(MAX_BASE_LIMIT, Math.max(limit, 2 * baseLimit));
+        int[] primes = Arrays.copyOf(basePrimes, basePrimes.length * 2);
+        int count = basePrimes.length;
+        long[] words = new long[SegmentSieve.SEGMENT_BITS / 64];
+        for (long lo = (baseLimit + 1) | 1; lo <= newLimit; lo += 2L * SegmentSieve.SEGMENT_BITS) {
+            int bits = SegmentSieve.segmentBits(lo, newLimit);
+            SegmentSieve.sieve(lo, bits, basePrimes, words);
+            for (int i = SegmentSieve.nextSetBit(words, 0, bits); i >= 0; i = SegmentSieve.nextSetBit(words, i + 1, bits)) {
+                if (count == primes.length) primes = Arrays.copyOf(primes, count * 2);
+                primes[count++] = (int) (lo + 2L * i);
+            }
+        }
+        basePrimes = Arrays.copyOf(primes, count);
+        baseLimit = newLimit;
+    }
+}
@@ -0,0 +1,57 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PrimeGeneratorTest {
+
+    @Test
+    void testFirstPrimes() {
+        assertArrayEquals(new long[] { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29 }, PrimeGenerator.primes().limit(10).toArray());
+        assertThrows(IllegalArgumentException.class, () -> new PrimeGenerator(-1));
+    }
+
+    @Test
+    void testSameAsCrivello() {
+        // la capacità copre più finestre
+        int capacity = 3 * SegmentSieve.SEGMENT_BITS * 2 + 12345;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        PrimeGenerator g = new PrimeGenerator();
+        while (c.hasNextPrime()) {
+            assertTrue(g.hasNext());
+            assertEquals(c.nextPrime(), g.nextLong());
+        }
+        assertTrue(g.hasNext());
+        assertTrue(g.nextLong() > capacity);
+    }
+
+    @Test
+    void testFrom() {
+        assertEquals(2, new PrimeGenerator(0).nextLong());
+        assertEquals(3, new PrimeGenerator(3).nextLong());
+        assertEquals(101, new PrimeGenerator(98).nextLong());
+        // i primi base vengono estesi oltre il limite iniziale
+        PrimeGenerator g = new PrimeGenerator(1_000_000_000_000L);
+        assertEquals(1_000_000_000_039L, g.nextLong());
+        RangeSieve r = new RangeSieve(1_000_000_000_040L, 1_000_000_100_000L);
+        while (r.hasNext()) {
+            assertEquals(r.nextLong(), g.nextLong());
+        }
+    }
+
+    @Test
+    void testLargeFrom() {
+        long from = 1_000_000_000_000_000L;
+        PrimeGenerator g = new PrimeGenerator(from);
+        long previous = from - 1;
+        for (int k = 0; k < 1000; k++) {
+            long p = g.nextLong();
+            for (long n = previous + 1; n < p; n++) {
+                assertFalse(MillerRabin.isPrime(n));
+            }
+            assertTrue(MillerRabin.isPrime(p));
+            previous = p;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Ricerca di gruppi di numeri primi (k-uple, come le coppie di primi gemelli
+ * o le quadruple) e di distanze tra primi consecutivi in un intervallo
+ * [lo, hi], anche molto grande. L'intervallo viene marcato un segmento alla
+ * volta con i bit dei numeri dispari, come in {@link RangeSieve}, e la
+ * ricerca lavora direttamente sui bit: una k-upla con scostamenti
+ * d_1, ..., d_k si trova facendo l'AND di ogni parola da 64 bit con le parole
+ * spostate di d_j / 2 posizioni, per cui con 64 numeri di partenza alla volta
+ * si fanno k operazioni invece di k chiamate a isPrime per ogni numero.
+ * <p>
+ * I risultati vengono prodotti come stream ordinati, calcolati a blocchi di
+ * segmenti: se viene passato un pool, i segmenti di un blocco vengono cercati
+ * in parallelo e poi i loro risultati vengono fusi nell'ordine dei segmenti.
+ * Una k-upla che parte in un segmento ma finisce nel successivo viene trovata
+ * marcando ogni segmento con qualche bit in più, quanti ne servono a coprire
+ * lo scostamento massimo; la distanza tra l'ultimo primo di un segmento e il
+ * primo del successivo viene calcolata durante la fusione.
+ * <p>
+ * Vengono calcolati solo i primi fino alla radice di hi, per cui la memoria
+ * dipende dalla larghezza di un blocco e non da quella dell'intervallo. Un
+ * oggetto di questa classe non cambia dopo la costruzione e può essere usato
+ * da più thread; ogni stream invece va consumato da un solo thread.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class PrimeTupleSearch {
+
+    /*
+     * Numero massimo di segmenti di un blocco per ogni thread del pool: più
+     * segmenti per thread bilanciano meglio il lavoro, ma occupano più
+     * memoria in attesa della fusione
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    /*
+     * Primo e ultimo numero, inclusi, dell'intervallo
+     */
+    private final long lo;
+
+    private final long hi;
+
+    /*
+     * Primo numero dispari, almeno 3, rappresentato dai bit dei segmenti
+     */
+    private final long first;
+
+    // numero di bit dei dispari da first a hi, 0 se non ce ne sono
+    private final long bits;
+
+    /*
+     * Primi dispari fino alla radice di hi, come interi senza segno
+     */
+    private final int[] basePrimes;
+
+    /*
+     * Il pool su cui cercare i segmenti, null per cercarli in sequenza nel
+     * thread che consuma lo stream
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Prepara la ricerca nell'intervallo [lo, hi], che verrà marcato in
+     * sequenza nel thread che consuma i risultati.
+     *
+     * @param lo il primo numero dell'intervallo, non negativo
+     * @param hi l'ultimo numero dell'intervallo
+     * @throws IllegalArgumentException se lo è negativo o se hi è minore di
+     *                                  lo
+     */
+    public PrimeTupleSearch(long lo, long hi) {
+        if (lo < 0 || hi < lo) {
+            throw new IllegalArgumentException("L'intervallo [" + lo + ", " + hi + "] non è valido.");
+        }
+        this.lo = lo;
+        this.hi = hi;
+        this.first = Math.max(lo | 1, 3);
+        this.bits = first <= hi ? (hi - first) / 2 + 1 : 0;
+        this.basePrimes = SegmentSieve.basePrimes(SegmentSieve.isqrt(hi));
+        this.pool = null;
+    }
+
+    /**
+     * Prepara la ricerca nell'intervallo [lo, hi], cercando in parallelo sul
+     * pool dato i segmenti di ogni blocco.
+     *
+     * @param lo   il primo numero dell'intervallo, non negativo
+     * @param hi   l'ultimo numero dell'intervallo
+     * @param pool il pool su cui cercare i segmenti
+     * @throws IllegalArgumentException se lo è negativo o se hi è minore di
+     *                                  lo
+     * @throws NullPointerException     se il pool passato è null
+     */
+    public PrimeTupleSearch(long lo, long hi, ForkJoinPool pool) {
+        if (lo < 0 || hi < lo) {
+            throw new IllegalArgumentException("L'intervallo [" + lo + ", " + hi + "] non è valido.");
+        }
+        if (pool == null) {
+            throw new NullPointerException("Il pool passato è nullo.");
+        }
+        this.lo = lo;
+        this.hi = hi;
+        this.first = Math.max(lo | 1, 3);
+        this.bits = first <= hi ? (hi - first) / 2 + 1 : 0;
+        this.basePrimes = SegmentSieve.basePrimes(SegmentSieve.isqrt(hi));
+        this.pool = pool;
+    }
+
+    /**
+     * Cerca le k-uple di numeri primi con gli scostamenti dati, cioè i numeri
+     * p tali che p + d sia primo per ogni scostamento d. Ad esempio {0, 2}
+     * trova le coppie di primi gemelli e {0, 2, 6, 8} le quadruple. Vengono
+     * restituite solo le k-uple con tutti i numeri dentro l'intervallo.
+     *
+     * @param offsets gli scostamenti, almeno due, in ordine strettamente
+     *                crescente, tutti pari, il primo 0 e l'ultimo al più
+     *                2^19
+     * @return lo stream ordinato dei primi numeri delle k-uple trovate
+     * @throws NullPointerException     se l'array passato è null
+     * @throws IllegalArgumentException se gli scostamenti non rispettano i
+     *                                  vincoli
+     */
+    public LongStream tuples(int... offsets) {
+        if (offsets.length < 2 || offsets[0] != 0 || offsets[offsets.length - 1] > 2 * SegmentSieve.SEGMENT_BITS) {
+            throw new IllegalArgumentException("Gli scostamenti devono essere almeno due, partire da 0 e non superare 2^19.");
+        }
+        // i primi sono tutti dispari tranne 2, che non può far parte di una
+        // k-upla con scostamenti pari, quindi ogni scostamento è un numero
+        // intero di bit
+        int[] shifts = new int[offsets.length];
+        for (int j = 1; j < offsets.length; j++) {
+            if (offsets[j] <= offsets[j - 1] || (offsets[j] & 1) != 0) {
+                throw new IllegalArgumentException("Gli scostamenti devono essere pari e in ordine strettamente crescente.");
+            }
+            shifts[j] = offsets[j] / 2;
+        }
+        return stream(segmentResults(segment -> tuplesIn(segment, shifts))).flatMapToLong(LongStream::of);
+    }
+
+    /**
+     * Cerca le distanze tra numeri primi consecutivi dell'intervallo lunghe
+     * almeno minLength. Le distanze da record, cioè più lunghe di tutte le
+     * precedenti, si ottengono filtrando in ordine lo stream restituito.
+     *
+     * @param minLength la lunghezza minima delle distanze da restituire,
+     *                  almeno 1
+     * @return lo stream delle distanze trovate, in ordine di numero primo
+     * @throws IllegalArgumentException se minLength è minore di 1
+     */
+    public Stream<PrimeGap> gaps(long minLength) {
+        if (minLength < 1) {
+            throw new IllegalArgumentException("La lunghezza minima deve essere almeno 1.");
+        }
+        Iterator<long[]> results = segmentResults(segment -> gapsIn(segment, minLength));
+        return stream(new Iterator<PrimeGap>() {
+            // l'ultimo primo dei segmenti già fusi, -1 se non ce ne sono; 2
+            // non sta nei segmenti e viene considerato prima di tutti
+            private long previous = lo <= 2 && hi >= 2 ? 2 : -1;
+
+            // i risultati del segmento corrente e la posizione della
+            // prossima distanza interna al segmento
+            private long[] current = new long[0];
+            private int pos;
+
+            // la distanza tra il segmento precedente e quello corrente, se
+            // non è ancora stata restituita
+            private PrimeGap boundary;
+
+            @Override
+            public boolean hasNext() {
+                while (boundary == null && pos >= current.length) {
+                    if (!results.hasNext()) return false;
+                    current = results.next();
+                    pos = 2;
+                    // un segmento senza primi non cambia l'ultimo primo
+                    if (current[0] < 0) continue;
+                    if (previous >= 0 && current[0] - previous >= minLength) {
+                        boundary = new PrimeGap(previous, current[0] - previous);
+                    }
+                    previous = current[1];
+                }
+                return true;
+            }
+
+            @Override
+            public PrimeGap next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Sono già state elencate tutte le distanze dell'intervallo.");
+                }
+                PrimeGap result = boundary;
+                if (result != null) {
+                    boundary = null;
+                } else {
+                    result = new PrimeGap(current[pos], current[pos + 1]);
+                    pos += 2;
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * @return il primo numero dell'intervallo
+     */
+    public long getLo() {
+        return lo;
+    }
+
+    /**
+     * @return l'ultimo numero dell'intervallo
+     */
+    public long getHi() {
+        return hi;
+    }
+
+    /*
+     * I primi numeri delle k-uple che partono nel segmento dato. Il segmento
+     * viene marcato con shifts[k - 1] bit in più, quelli del segmento
+     * successivo che servono per le k-uple che partono verso la fine.
+     */
+    private long[] tuplesIn(long segment, int[] shifts) {
+        long segmentLo = first + 2L * SegmentSieve.SEGMENT_BITS * segment;
+        long remaining = bits - segment * SegmentSieve.SEGMENT_BITS;
+        int span = shifts[shifts.length - 1];
+        int own = (int) Math.min(SegmentSieve.SEGMENT_BITS, remaining);
+        int ownWords = (own + 63) >>> 6;
+        // una parola in più per leggere a cavallo di due parole; i bit dopo hi
+        // restano a 0, per cui le k-uple che escono dall'intervallo non
+        // vengono trovate
+        long[] words = new long[ownWords + (span >>> 6) + 1];
+        SegmentSieve.sieve(segmentLo, (int) Math.min(own + span, remaining), basePrimes, words);
+        long[] result = new long[16];
+        int count = 0;
+        for (int w = 0; w < ownWords; w++) {
+            long mask = words[w];
+            for (int j = 1; j < shifts.length && mask != 0; j++) {
+                mask &= wordAt(words, (w << 6) + shifts[j]);
+            }
+            if (w == ownWords - 1 && (own & 63) != 0) mask &= (1L << own) - 1;
+            while (mask != 0) {
+                if (count == result.length) result = Arrays.copyOf(result, count * 2);
+                result[count++] = segmentLo + 2L * ((w << 6) + Long.numberOfTrailingZeros(mask));
+                mask &= mask - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /*
+     * I 64 bit di words a partire dalla posizione i
+     */
+    private static long wordAt(long[] words, int i) {
+        int w = i >>> 6;
+        int r = i & 63;
+        return r == 0 ? words[w] : (words[w] >>> r) | (words[w + 1] << (64 - r));
+    }
+
+    /*
+     * Le distanze interne al segmento dato, come array {primo, ultimo, p1,
+     * l1, p2, l2, ...} con il primo e l'ultimo numero primo del segmento,
+     * entrambi -1 se non ce ne sono, seguiti dalle coppie primo e lunghezza
+     * delle distanze lunghe almeno minLength.
+     */
+    private long[] gapsIn(long segment, long minLength) {
+        long segmentLo = first + 2L * SegmentSieve.SEGMENT_BITS * segment;
+        int own = (int) Math.min(SegmentSieve.SEGMENT_BITS, bits - segment * SegmentSieve.SEGMENT_BITS);
+        long[] words = new long[(own + 63) >>> 6];
+        SegmentSieve.sieve(segmentLo, own, basePrimes, words);
+        long[] result = new long[16];
+        int count = 2;
+        int i = SegmentSieve.nextSetBit(words, 0, own);
+        if (i < 0) return new long[] { -1, -1 };
+        result[0] = segmentLo + 2L * i;
+        for (int next = SegmentSieve.nextSetBit(words, i + 1, own); next >= 0;
+             i = next, next = SegmentSieve.nextSetBit(words, i + 1, own)) {
+            if (2L * (next - i) >= minLength) {
+                if (count == result.length) result = Arrays.copyOf(result, count * 2);
+                result[count++] = segmentLo + 2L * i;
+                result[count++] = 2L * (next - i);
+            }
+        }
+        result[1] = segmentLo + 2L * i;
+        return Arrays.copyOf(result, count);
+    }
+
+    /*
+     * Gli esiti di search per ogni segmento, in ordine. I segmenti vengono
+     * cercati a blocchi: con un pool tutti i segmenti di un blocco vengono
+     * cercati in parallelo prima di restituire il primo esito del blocco.
+     */
+    private <R> Iterator<R> segmentResults(LongFunction<R> search) {
+        long segments = (bits + SegmentSieve.SEGMENT_BITS - 1) / SegmentSieve.SEGMENT_BITS;
+        int batchSize = pool == null ? 1 : pool.getParallelism() * SEGMENTS_PER_THREAD;
+        return new Iterator<R>() {
+            private final Object[] batch = new Object[batchSize];
+
+            // il primo segmento del prossimo blocco
+            private long nextSegment;
+
+            // numero di esiti nel blocco corrente e posizione del prossimo
+            private int size;
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                if (pos == size && nextSegment < segments) {
+                    size = (int) Math.min(batch.length, segments - nextSegment);
+                    pos = 0;
+                    if (pool == null) {
+                        batch[0] = search.apply(nextSegment);
+                    } else {
+                        pool.invoke(new SearchTask<>(search, batch, nextSegment, 0, size));
+                    }
+                    nextSegment += size;
+                }
+                return pos < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public R next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Sono già stati cercati tutti i segmenti.");
+                }
+                R result = (R) batch[pos];
+                batch[pos++] = null;
+                return result;
+            }
+        };
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /*
+     * Cerca i segmenti firstSegment + from, ..., firstSegment + to - 1 e
+     * mette i loro esiti in results alle posizioni da from a to - 1,
+     * dividendo l'intervallo a metà finché non resta un solo segmento.
+     */
+    private static class SearchTask<R> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final LongFunction<R> search;
+        private final Object[] results;
+        private final long firstSegment;
+        private final int from;
+        private final int to;
+
+        SearchTask(LongFunction<R> search, Object[] results, long firstSegment, int from, int to) {
+            this.search = search;
+            this.results = results;
+            this.firstSegment = firstSegment;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = search.apply(firstSegment + from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SearchTask<>(search, results, firstSegment, from, mid),
+                        new SearchTask<>(search, results, firstSegment, mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class PrimeTupleSearchTest {
+
+    /*
+     * I primi p dell'intervallo per cui p + d è primo e nell'intervallo per
+     * ogni scostamento d, controllati uno per uno
+     */
+    private static long[] naiveTuples(long lo, long hi, int... offsets) {
+        long[] primes = RangeSieve.primes(lo, hi).toArray();
+        return RangeSieve.primes(lo, hi).filter(p -> {
+            for (int d : offsets) {
+                if (p + d > hi || Arrays.binarySearch(primes, p + d) < 0) return false;
+            }
+            return true;
+        }).toArray();
+    }
+
+    private static List<PrimeGap> naiveGaps(long lo, long hi, long minLength) {
+        long[] primes = RangeSieve.primes(lo, hi).toArray();
+        List<PrimeGap> result = new ArrayList<>();
+        for (int i = 1; i < primes.length; i++) {
+            if (primes[i] - primes[i - 1] >= minLength) result.add(new PrimeGap(primes[i - 1], primes[i] - primes[i - 1]));
+        }
+        return result;
+    }
+
+    @Test
+    final void testTwinsAndQuadruplets() {
+        PrimeTupleSearch search = new PrimeTupleSearch(0, 1_000_000);
+        assertEquals(8169, search.tuples(0, 2).count());
+        assertEquals(166, search.tuples(0, 2, 6, 8).count());
+        assertArrayEquals(new long[] { 5, 11, 101, 191, 821 }, search.tuples(0, 2, 6, 8).limit(5).toArray());
+        // l'unica terna di primi a distanza 2
+        assertArrayEquals(new long[] { 3 }, search.tuples(0, 2, 4).toArray());
+    }
+
+    @Test
+    final void testAcrossSegments() {
+        // l'intervallo copre diversi segmenti e non parte da un numero dispari
+        long lo = 1_000_000_000_000L;
+        long hi = lo + 3_000_000;
+        PrimeTupleSearch search = new PrimeTupleSearch(lo, hi);
+        assertArrayEquals(naiveTuples(lo, hi, 0, 2), search.tuples(0, 2).toArray());
+        assertArrayEquals(naiveTuples(lo, hi, 0, 4, 6, 10), search.tuples(0, 4, 6, 10).toArray());
+        assertArrayEquals(naiveTuples(lo, hi, 0, 200), search.tuples(0, 200).toArray());
+        assertEquals(naiveGaps(lo, hi, 1), search.gaps(1).collect(Collectors.toList()));
+        assertEquals(naiveGaps(lo, hi, 100), search.gaps(100).collect(Collectors.toList()));
+    }
+
+    @Test
+    final void testParallelSameAsSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long lo = 123_456_789;
+            long hi = lo + 20_000_000;
+            PrimeTupleSearch sequential = new PrimeTupleSearch(lo, hi);
+            PrimeTupleSearch parallel = new PrimeTupleSearch(lo, hi, pool);
+            assertArrayEquals(sequential.tuples(0, 2, 6).toArray(), parallel.tuples(0, 2, 6).toArray());
+            assertEquals(sequential.gaps(60).collect(Collectors.toList()),
+                    parallel.gaps(60).collect(Collectors.toList()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    final void testRecordGaps() {
+        // le distanze da record tra i primi fino a 10^6, con il primo da cui partono
+        long[][] expected = { { 2, 1 }, { 3, 2 }, { 7, 4 }, { 23, 6 }, { 89, 8 }, { 113, 14 }, { 523, 18 },
+                { 887, 20 }, { 1129, 22 }, { 1327, 34 }, { 9551, 36 }, { 15683, 44 }, { 19609, 52 },
+                { 31397, 72 }, { 155921, 86 }, { 360653, 96 }, { 370261, 112 }, { 492113, 114 } };
+        List<PrimeGap> records = new ArrayList<>();
+        new PrimeTupleSearch(0, 1_000_000, ForkJoinPool.commonPool()).gaps(1).forEachOrdered(g -> {
+            if (records.isEmpty() || g.getLength() > records.get(records.size() - 1).getLength()) records.add(g);
+        });
+        assertEquals(expected.length, records.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(new PrimeGap(expected[i][0], expected[i][1]), records.get(i));
+        }
+    }
+
+    @Test
+    final void testSmallAndEmptyRanges() {
+        assertEquals(0, new PrimeTupleSearch(0, 1).gaps(1).count());
+        assertEquals(0, new PrimeTupleSearch(2, 2).gaps(1).count());
+        assertEquals(List.of(new PrimeGap(2, 1)), new PrimeTupleSearch(2, 3).gaps(1).collect(Collectors.toList()));
+        // la coppia (11, 13) esce dall'intervallo
+        assertArrayEquals(new long[] { 5 }, new PrimeTupleSearch(4, 12).tuples(0, 2).toArray());
+        assertEquals(0, new PrimeTupleSearch(24, 28).tuples(0, 2).count());
+    }
+
+    @Test
+    final void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new PrimeTupleSearch(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PrimeTupleSearch(10, 9));
+        assertThrows(NullPointerException.class, () -> new PrimeTupleSearch(0, 10, null));
+        PrimeTupleSearch search = new PrimeTupleSearch(0, 100);
+        assertThrows(IllegalArgumentException.class, () -> search.tuples(0));
+        assertThrows(IllegalArgumentException.class, () -> search.tuples(2, 4));
+        assertThrows(IllegalArgumentException.class, () -> search.tuples(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> search.tuples(0, 6, 4));
+        assertThrows(IllegalArgumentException.class, () -> search.gaps(0));
+    }
+}
@@ -0,0 +1,90 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Albero dei prodotti di una sequenza di numeri positivi: le foglie sono i
+ * numeri e ogni nodo è il prodotto dei suoi due figli, per cui la radice è il
+ * prodotto di tutta la sequenza. Scendendo l'albero dalla radice si calcola il
+ * resto di un numero grande diviso per ogni foglia (albero dei resti): ogni
+ * resto viene calcolato a partire dal resto del nodo padre, che è molto più
+ * piccolo del numero di partenza, per cui il costo totale è di pochi prodotti
+ * della dimensione della radice invece di una divisione del numero grande per
+ * ogni foglia.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class ProductTree {
+
+    /*
+     * I livelli dell'albero: il livello 0 contiene le foglie, l'ultimo solo la
+     * radice. Il nodo i di un livello è il prodotto dei nodi 2 * i e 2 * i + 1
+     * del livello inferiore, o solo del nodo 2 * i se l'altro non esiste.
+     */
+    private final BigInteger[][] levels;
+
+    /*
+     * Le foglie, per calcolare gli ultimi resti senza BigInteger
+     */
+    private final long[] leaves;
+
+    /**
+     * Costruisce l'albero dei prodotti dei numeri passati.
+     *
+     * @param leaves i numeri delle foglie, tutti positivi, almeno uno
+     */
+    ProductTree(long[] leaves) {
+        List<BigInteger[]> levels = new ArrayList<>();
+        BigInteger[] level = new BigInteger[leaves.length];
+        for (int i = 0; i < leaves.length; i++) {
+            level[i] = BigInteger.valueOf(leaves[i]);
+        }
+        levels.add(level);
+        while (level.length > 1) {
+            BigInteger[] parents = new BigInteger[(level.length + 1) / 2];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = 2 * i + 1 < level.length ? level[2 * i].multiply(level[2 * i + 1]) : level[2 * i];
+            }
+            levels.add(parents);
+            level = parents;
+        }
+        this.levels = levels.toArray(new BigInteger[0][]);
+        this.leaves = leaves;
+    }
+
+    /**
+     * @return il prodotto di tutte le foglie
+     */
+    BigInteger root() {
+        return levels[levels.length - 1][0];
+    }
+
+    /**
+     * Calcola il resto della divisione di un numero per ognuna delle foglie.
+     *
+     * @param value il numero da dividere, non negativo
+     * @return l'array che in posizione i contiene value mod leaves[i]
+     */
+    long[] remainders(BigInteger value) {
+        BigInteger[] remainders = { value.mod(root()) };
+        for (int k = levels.length - 2; k > 0; k--) {
+            BigInteger[] level = levels[k];
+            BigInteger[] children = new BigInteger[level.length];
+            for (int i = 0; i < level.length; i++) {
+                children[i] = remainders[i >>> 1].mod(level[i]);
+            }
+            remainders = children;
+        }
+        // se il resto del padre sta in un long, cioè quasi sempre, il resto
+        // della foglia si calcola con una divisione tra long
+        long[] result = new long[leaves.length];
+        for (int i = 0; i < result.length; i++) {
+            BigInteger parent = remainders[levels.length > 1 ? i >>> 1 : i];
+            result[i] = parent.bitLength() < 64 ? parent.longValue() % leaves[i]
+                    : parent.mod(levels[0][i]).longValue();
+        }
+        return result;
+    }
+}
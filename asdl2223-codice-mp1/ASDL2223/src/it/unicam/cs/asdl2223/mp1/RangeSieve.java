@@ -0,0 +1,150 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Elenca in ordine crescente i numeri primi compresi in un intervallo
+ * [lo, hi] senza marcare il crivello a partire da 0. Vengono calcolati solo i
+ * primi fino alla radice di hi e l'intervallo viene marcato una finestra alla
+ * volta, man mano che l'elenco avanza. Per un intervallo piccolo con lo molto
+ * grande, come [10^12, 10^12 + 10^7], il lavoro e la memoria dipendono quindi
+ * dalla larghezza dell'intervallo e non dal suo estremo.
+ * <p>
+ * Un oggetto di questa classe non è thread-safe; per elencare lo stesso
+ * intervallo da più thread basta creare un oggetto per thread.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class RangeSieve implements PrimitiveIterator.OfLong {
+
+    /*
+     * Ultimo numero, incluso, dell'intervallo
+     */
+    private final long hi;
+
+    /*
+     * Primi dispari fino alla radice di hi, come interi senza segno
+     */
+    private final int[] basePrimes;
+
+    /*
+     * Finestra corrente: il bit i è a 1 se e solo se windowLo + 2 * i è primo
+     */
+    private final long[] window;
+
+    // primo numero, dispari, della finestra corrente
+    private long windowLo;
+
+    // numero di bit significativi della finestra corrente, 0 se l'intervallo è finito
+    private int windowBits;
+
+    // il prossimo numero primo da restituire, -1 se l'elenco è terminato
+    private long next;
+
+    /**
+     * Prepara l'elenco dei numeri primi compresi tra lo e hi, estremi inclusi.
+     *
+     * @param lo il primo numero dell'intervallo, non negativo
+     * @param hi l'ultimo numero dell'intervallo
+     * @throws IllegalArgumentException se lo è negativo o se hi è minore di
+     *                                  lo
+     */
+    public RangeSieve(long lo, long hi) {
+        if (lo < 0 || hi < lo) {
+            throw new IllegalArgumentException("L'intervallo [" + lo + ", " + hi + "] non è valido.");
+        }
+        this.hi = hi;
+        this.basePrimes = SegmentSieve.basePrimes(SegmentSieve.isqrt(hi));
+        // la finestra copre i numeri dispari dell'intervallo, ma non supera
+        // un segmento anche se l'intervallo è più largo
+        int bits = (int) Math.min(SegmentSieve.SEGMENT_BITS, (hi - lo) / 2 + 1);
+        this.window = new long[(bits + 63) >>> 6];
+        if (lo <= 2 && hi >= 2) {
+            // 2 è l'unico primo pari e viene restituito prima delle finestre
+            this.next = 2;
+            this.windowLo = 3;
+        } else {
+            this.windowLo = Math.max(lo | 1, 3);
+            this.next = -1;
+        }
+        this.windowBits = 0;
+        if (windowLo <= hi) {
+            windowBits = SegmentSieve.segmentBits(windowLo, hi);
+            SegmentSieve.sieve(windowLo, windowBits, basePrimes, window);
+        }
+        if (next < 0) next = find(0);
+    }
+
+    /**
+     * Restituisce lo stream ordinato dei numeri primi compresi tra lo e hi,
+     * estremi inclusi.
+     *
+     * @param lo il primo numero dell'intervallo, non negativo
+     * @param hi l'ultimo numero dell'intervallo
+     * @return lo stream dei numeri primi dell'intervallo
+     * @throws IllegalArgumentException se lo è negativo o se hi è minore di
+     *                                  lo
+     */
+    public static LongStream primes(long lo, long hi) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(new RangeSieve(lo, hi),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Indica se ci sono ancora numeri primi da elencare nell'intervallo.
+     *
+     * @return true se c'è ancora un numero primo, false altrimenti
+     */
+    @Override
+    public boolean hasNext() {
+        return next >= 0;
+    }
+
+    /**
+     * Restituisce il prossimo numero primo dell'intervallo.
+     *
+     * @return il prossimo numero primo
+     * @throws NoSuchElementException se sono già stati elencati tutti i
+     *                                numeri primi dell'intervallo
+     */
+    @Override
+    public long nextLong() {
+        long result = next;
+        if (result < 0) {
+            throw new NoSuchElementException("Sono già stati elencati tutti i numeri primi dell'intervallo.");
+        }
+        // dopo 2 si parte dal primo bit della finestra, altrimenti dal bit
+        // successivo a quello appena restituito
+        next = find(result == 2 ? 0 : (int) ((result - windowLo) >>> 1) + 1);
+        return result;
+    }
+
+    /*
+     * Cerca il prossimo primo a partire dal bit from della finestra corrente,
+     * marcando le finestre successive finché non ne trova uno. Restituisce -1
+     * quando l'intervallo è finito.
+     */
+    private long find(int from) {
+        while (windowBits > 0) {
+            int i = SegmentSieve.nextSetBit(window, from, windowBits);
+            if (i >= 0) return windowLo + 2L * i;
+            // la finestra successiva parte dopo l'ultimo numero di questa
+            long last = windowLo + 2L * (windowBits - 1);
+            if (last >= hi - 1) {
+                windowBits = 0;
+            } else {
+                windowLo = last + 2;
+                windowBits = SegmentSieve.segmentBits(windowLo, hi);
+                SegmentSieve.sieve(windowLo, windowBits, basePrimes, window);
+                from = 0;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,49 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+class RangeSieveTest {
+
+    @Test
+    void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> new RangeSieve(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RangeSieve(10, 9));
+    }
+
+    @Test
+    void testSmallRanges() {
+        assertArrayEquals(new long[] { 2, 3, 5, 7 }, RangeSieve.primes(0, 10).toArray());
+        assertArrayEquals(new long[] { 2 }, RangeSieve.primes(2, 2).toArray());
+        assertArrayEquals(new long[] {}, RangeSieve.primes(0, 1).toArray());
+        assertArrayEquals(new long[] {}, RangeSieve.primes(24, 28).toArray());
+        assertArrayEquals(new long[] { 97, 101, 103 }, RangeSieve.primes(97, 103).toArray());
+        RangeSieve r = new RangeSieve(14, 16);
+        assertFalse(r.hasNext());
+        assertThrows(NoSuchElementException.class, () -> r.nextLong());
+    }
+
+    @Test
+    void testSameAsCrivello() {
+        int capacity = 3 * SegmentSieve.SEGMENT_BITS;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        int lo = 123_457;
+        long[] expected = c.primes().filter(p -> p >= lo).asLongStream().toArray();
+        assertArrayEquals(expected, RangeSieve.primes(lo, capacity).toArray());
+    }
+
+    @Test
+    void testLargeWindow() {
+        long lo = 1_000_000_000_000L;
+        long[] primes = RangeSieve.primes(lo, lo + 10_000_000).toArray();
+        // i primi tra 10^12 e 10^12 + 10^7
+        assertEquals(361726, primes.length);
+        assertEquals(1_000_000_000_039L, primes[0]);
+        for (int i = 0; i < primes.length; i += 1000) {
+            assertTrue(MillerRabin.isPrime(primes[i]));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+
+/**
+ * Operazioni di supporto per i crivelli che lavorano a finestre (segmenti). Un
+ * segmento è una porzione di interi dispari consecutivi, a partire da un numero
+ * dispari {@code lo}, rappresentata come un array di bit: il bit i del segmento
+ * corrisponde al numero {@code lo + 2 * i} ed è a 1 se e solo se il numero è
+ * primo. I numeri pari non vengono memorizzati.
+ * <p>
+ * Per marcare un segmento servono solo i primi dispari fino alla radice del
+ * massimo numero del segmento (i "primi base"). I primi base sono memorizzati
+ * come interi senza segno, così da coprire tutti i valori fino alla radice di
+ * {@link Long#MAX_VALUE}.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+final class SegmentSieve {
+
+    /*
+     * Numero di bit di un segmento: 2^18 bit occupano 32 KB, cioè la dimensione
+     * tipica di una cache L1 dati, e coprono 2^19 numeri consecutivi.
+     */
+    static final int SEGMENT_BITS = 1 << 18;
+
+    private SegmentSieve() {
+    }
+
+    /**
+     * Calcola la radice quadrata intera di un numero non negativo, cioè il più
+     * grande r tale che r * r <= n.
+     *
+     * @param n il numero di cui calcolare la radice
+     * @return la parte intera della radice quadrata di n
+     */
+    static long isqrt(long n) {
+        long r = (long) Math.sqrt((double) n);
+        // correggo gli errori di arrotondamento del double senza andare in
+        // overflow
+        while (r > 0 && r > n / r) r--;
+        while (r + 1 <= n / (r + 1)) r++;
+        return r;
+    }
+
+    /**
+     * Restituisce tutti i numeri primi dispari minori o uguali a un limite,
+     * in ordine crescente. I valori vanno letti come interi senza segno, cioè
+     * con {@link Integer#toUnsignedLong(int)}.
+     *
+     * @param limit il limite superiore, al più 2^32 - 1
+     * @return i primi dispari fino a limit
+     */
+    static int[] basePrimes(long limit) {
+        if (limit < 3) return new int[0];
+        // i primi che servono per marcare [3, limit] arrivano fino alla sua
+        // radice, che si calcolano ricorsivamente
+        int[] small = limit < 9 ? new int[0] : basePrimes(isqrt(limit));
+        int[] result = new int[Math.max(16, small.length * 2)];
+        int count = 0;
+        long[] words = new long[SEGMENT_BITS / 64];
+        for (long lo = 3; lo <= limit; lo += 2L * SEGMENT_BITS) {
+            int bits = segmentBits(lo, limit);
+            sieve(lo, bits, small, words);
+            for (int i = nextSetBit(words, 0, bits); i >= 0; i = nextSetBit(words, i + 1, bits)) {
+                if (count == result.length) result = Arrays.copyOf(result, count * 2);
+                result[count++] = (int) (lo + 2L * i);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Calcola quanti bit servono al segmento che parte da lo per arrivare al
+     * più fino a hi, senza superare la dimensione di un segmento.
+     *
+     * @param lo il primo numero, dispari, del segmento
+     * @param hi il limite superiore dell'intervallo da coprire
+     * @return il numero di bit del segmento
+     */
+    static int segmentBits(long lo, long hi) {
+        return (int) Math.min(SEGMENT_BITS, (hi - lo) / 2 + 1);
+    }
+
+    /**
+     * Marca un segmento: alla fine il bit i di words, con i < bits, è a 1 se e
+     * solo se {@code lo + 2 * i} è primo. Le posizioni successive a bits
+     * dell'ultima parola utilizzata vengono lasciate a 0.
+     *
+     * @param lo         il primo numero del segmento, dispari
+     * @param bits       il numero di bit del segmento
+     * @param basePrimes i primi dispari almeno fino alla radice dell'ultimo
+     *                   numero del segmento, come interi senza segno
+     * @param words      l'array di appoggio con almeno (bits + 63) / 64
+     *                   parole
+     */
+    static void sieve(long lo, int bits, int[] basePrimes, long[] words) {
+        sieve(lo, bits, basePrimes, words, 0);
+    }
+
+    /**
+     * Marca un segmento come {@link #sieve(long, int, int[], long[])}, ma
+     * scrivendo i bit in words a partire dalla parola di posizione offset. In
+     * questo modo più segmenti adiacenti possono essere marcati direttamente
+     * dentro lo stesso array, toccando ognuno solo le proprie parole.
+     *
+     * @param lo         il primo numero del segmento, dispari
+     * @param bits       il numero di bit del segmento
+     * @param basePrimes i primi dispari almeno fino alla radice dell'ultimo
+     *                   numero del segmento, come interi senza segno
+     * @param words      l'array in cui scrivere il segmento
+     * @param offset     la posizione in words della prima parola del
+     *                   segmento
+     */
+    static void sieve(long lo, int bits, int[] basePrimes, long[] words, int offset) {
+        int nWords = (bits + 63) >>> 6;
+        Arrays.fill(words, offset, offset + nWords, -1L);
+        if ((bits & 63) != 0) words[offset + nWords - 1] = (1L << bits) - 1;
+        // 1 non è primo
+        if (lo == 1) words[offset] &= ~1L;
+
+        long hi = lo + 2L * (bits - 1);
+        for (int bp : basePrimes) {
+            long p = Integer.toUnsignedLong(bp);
+            if (p > hi / p) break;
+            // parto dal quadrato di p, perché i multipli più piccoli sono già
+            // stati marcati da primi minori, altrimenti dal primo multiplo
+            // dispari di p dentro il segmento
+            long start = p * p;
+            if (start < lo) {
+                // calcolo sulle differenze da lo per non andare in overflow
+                // vicino a Long.MAX_VALUE
+                long r = lo % p;
+                start = r == 0 ? lo : lo + (p - r);
+                if ((start & 1) == 0) start += p;
+            }
+            for (long i = (start - lo) >>> 1; i < bits; i += p) {
+                words[offset + (int) (i >>> 6)] &= ~(1L << i);
+            }
+        }
+    }
+
+    /**
+     * Cerca il primo bit a 1 in words a partire dalla posizione from,
+     * esaminando una parola da 64 bit alla volta.
+     *
+     * @param words l'array di bit
+     * @param from  la posizione da cui iniziare la ricerca
+     * @param bits  il numero di bit significativi
+     * @return la posizione del primo bit a 1 maggiore o uguale a from, -1 se
+     * non esiste
+     */
+    static int nextSetBit(long[] words, int from, int bits) {
+        if (from >= bits) return -1;
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        int lastWord = (bits - 1) >>> 6;
+        while (word == 0) {
+            if (++w > lastWord) return -1;
+            word = words[w];
+        }
+        int i = (w << 6) + Long.numberOfTrailingZeros(word);
+        return i < bits ? i : -1;
+    }
+}
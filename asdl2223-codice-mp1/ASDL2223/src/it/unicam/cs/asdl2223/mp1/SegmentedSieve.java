@@ -0,0 +1,189 @@
+package it.unicam.cs.asdl2223.mp1;
+
+/**
+ * Un crivello di Eratostene segmentato offre le stesse funzionalità di
+ * {@link CrivelloDiEratostene}, ma non memorizza l'intero crivello. Vengono
+ * tenuti in memoria solo i numeri primi fino alla radice della capacità (i
+ * "primi base") e una finestra di dimensione fissa, grande quanto una cache L1,
+ * che viene marcata al momento usando i primi base. In questo modo la capacità
+ * può arrivare a {@link Long#MAX_VALUE} senza memorizzare un bit per ogni
+ * numero.
+ * <p>
+ * L'occupazione di memoria però non è costante: i primi base vengono
+ * calcolati tutti nel costruttore e occupano 4 byte ciascuno, cioè circa
+ * 4 * sqrt(capacity) / ln(sqrt(capacity)) byte, più una copia temporanea
+ * durante la costruzione. Fino a 10^14 sono meno di 3 MB, ma vicino a
+ * {@link Long#MAX_VALUE} i primi base sono circa 1.5 * 10^8 e occupano circa
+ * 600 MB.
+ * <p>
+ * Il metodo isPrime(long) marca, se necessario, la finestra che contiene il
+ * numero richiesto, per cui è efficiente quando le interrogazioni successive
+ * riguardano numeri vicini. L'elenco dei numeri primi tramite hasNextPrime() e
+ * nextPrime() scorre le finestre una dopo l'altra, marcandole una sola volta:
+ * il primo cercato da hasNextPrime() viene ricordato e restituito dal
+ * successivo nextPrime() senza cercarlo di nuovo.
+ * <p>
+ * Un oggetto di questa classe non è thread-safe, perché la finestra corrente e
+ * l'elenco corrente sono condivisi tra le chiamate.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class SegmentedSieve {
+
+    /*
+     * Capacità del crivello, immutabile
+     */
+    private final long capacity;
+
+    /*
+     * Primi dispari fino alla radice della capacità, come interi senza segno
+     */
+    private final int[] basePrimes;
+
+    /*
+     * Finestra corrente: il bit i è a 1 se e solo se windowLo + 2 * i è primo.
+     * Una finestra parte sempre da un numero dispari allineato alla dimensione
+     * di un segmento, così ogni numero appartiene a una sola finestra.
+     */
+    private final long[] window;
+
+    // primo numero della finestra corrente, -1 se non è ancora stata marcata
+    private long windowLo = -1;
+
+    // numero di bit significativi della finestra corrente
+    private int windowBits;
+
+    //l'ultimo numero primo restituito dall'elenco corrente, 1 se l'elenco è appena partito
+    private long currentPrime = 1;
+
+    // il prossimo primo dell'elenco già cercato da hasNextPrime(), -1 se non
+    // esiste, 0 se non è ancora stato cercato
+    private long lookahead;
+
+    /**
+     * Costruisce il crivello segmentato fino alla capacità data. Vengono
+     * calcolati subito solo i primi fino alla radice della capacità. La
+     * capacità deve essere almeno 2.
+     *
+     * @param capacity capacità del crivello, almeno 2
+     * @throws IllegalArgumentException se il numero {@code capacity} è
+     *                                  minore di {@code 2}
+     */
+    public SegmentedSieve(long capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("La capacità del crivello deve essere almeno 2.");
+        }
+        this.capacity = capacity;
+        this.basePrimes = SegmentSieve.basePrimes(SegmentSieve.isqrt(capacity));
+        this.window = new long[SegmentSieve.SEGMENT_BITS / 64];
+    }
+
+    /**
+     * Restituisce la capacità di questo crivello, cioè il numero massimo di
+     * entrate.
+     *
+     * @return la capacità di questo crivello
+     */
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Controlla se un numero è primo. Può rispondere solo se il numero passato
+     * come parametro è minore o uguale alla capacità di questo crivello.
+     *
+     * @param n il numero da controllare
+     * @return true se il numero passato è primo, false altrimenti
+     * @throws IllegalArgumentException se il numero passato {@code n}
+     *                                  eccede la capacità di questo
+     *                                  crivello o se è un numero minore di
+     *                                  2.
+     */
+    public boolean isPrime(long n) {
+        if (n > capacity || n < 2) {
+            throw new IllegalArgumentException("il numero passato eccede la capacità di questo crivello o è un numero minore di 2.");
+        }
+        if (n == 2) return true;
+        if ((n & 1) == 0) return false;
+        long bit = loadWindow(n);
+        return (window[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Indica se l'elenco corrente dei numeri primi di questo crivello ha ancora
+     * un numero disponibile da elencare. Se il metodo restituisce false non si
+     * potrà più chiamare il metodo nextPrime() fino a quando l'elenco non viene
+     * fatto ripartire tramite il metodo restartPrimeIteration().
+     *
+     * @return true se c'è ancora un numero primo nell'elenco dei numeri primi
+     * di questo crivello, false se sono già stati elencati tutti i
+     * numeri primi di questo crivello.
+     */
+    public boolean hasNextPrime() {
+        if (lookahead == 0) lookahead = findPrimeAfter(currentPrime);
+        return lookahead > 0;
+    }
+
+    /**
+     * Restituisce il prossimo numero primo in questo crivello nell'elenco
+     * corrente. L'elenco parte sempre dal numero 2 e si interrompe non appena
+     * il metodo hasNextPrime() diventa false.
+     *
+     * @return il prossimo numero primo nell'elenco corrente
+     * @throws IllegalStateException se l'elenco è terminato e non è stato
+     *                               ancora fatto ripartire.
+     */
+    public long nextPrime() {
+        long next = lookahead != 0 ? lookahead : findPrimeAfter(currentPrime);
+        if (next < 0) {
+            throw new IllegalStateException("L'elenco è terminato e non è stato ancora fatto ripartire.");
+        }
+        currentPrime = next;
+        lookahead = 0;
+        return next;
+    }
+
+    /**
+     * Fa ripartire da 2 l'elenco corrente dei numeri primi fino alla capacità
+     * di questo crivello. Questo metodo può essere chiamato in qualsiasi
+     * momento, anche se l'elenco corrente non è ancora terminato.
+     */
+    public void restartPrimeIteration() {
+        currentPrime = 1;
+        lookahead = 0;
+    }
+
+    /*
+     * Restituisce il più piccolo primo maggiore di n e minore o uguale alla
+     * capacità, -1 se non esiste. Le finestre vengono marcate una alla volta
+     * solo finché non si trova un primo.
+     */
+    private long findPrimeAfter(long n) {
+        if (n < 2) return 2;
+        // il prossimo candidato è il dispari successivo a n
+        long candidate = (n & 1) == 0 ? n + 1 : n + 2;
+        while (candidate > 0 && candidate <= capacity) {
+            long bit = loadWindow(candidate);
+            int next = SegmentSieve.nextSetBit(window, (int) bit, windowBits);
+            if (next >= 0) return windowLo + 2L * next;
+            // passo alla finestra successiva
+            candidate = windowLo + 2L * windowBits;
+        }
+        return -1;
+    }
+
+    /*
+     * Rende corrente la finestra che contiene il numero dispari n, marcandola
+     * se non lo è già, e restituisce la posizione di n dentro la finestra.
+     */
+    private long loadWindow(long n) {
+        long index = (n - 1) >>> 1;
+        long lo = 1 + 2 * (index - index % SegmentSieve.SEGMENT_BITS);
+        if (lo != windowLo) {
+            windowBits = SegmentSieve.segmentBits(lo, capacity);
+            SegmentSieve.sieve(lo, windowBits, basePrimes, window);
+            windowLo = lo;
+        }
+        return (n - lo) >>> 1;
+    }
+}
@@ -0,0 +1,84 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SegmentedSieveTest {
+
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedSieve(1));
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedSieve(-5));
+    }
+
+    @Test
+    void testIsPrimeOutOfRange() {
+        SegmentedSieve s = new SegmentedSieve(100);
+        assertThrows(IllegalArgumentException.class, () -> s.isPrime(1));
+        assertThrows(IllegalArgumentException.class, () -> s.isPrime(101));
+    }
+
+    @Test
+    void testSameAsCrivello() {
+        // la capacità copre più di un segmento
+        int capacity = 3 * SegmentSieve.SEGMENT_BITS + 12345;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        SegmentedSieve s = new SegmentedSieve(capacity);
+        for (int n = 2; n <= capacity; n++) {
+            assertEquals(c.isPrime(n), s.isPrime(n));
+        }
+        while (c.hasNextPrime()) {
+            assertTrue(s.hasNextPrime());
+            assertEquals(c.nextPrime(), s.nextPrime());
+        }
+        assertFalse(s.hasNextPrime());
+        assertThrows(IllegalStateException.class, () -> s.nextPrime());
+    }
+
+    @Test
+    void testRestartPrimeIteration() {
+        SegmentedSieve s = new SegmentedSieve(30);
+        assertEquals(2, s.nextPrime());
+        assertEquals(3, s.nextPrime());
+        s.restartPrimeIteration();
+        assertEquals(2, s.nextPrime());
+        assertTrue(s.isPrime(29));
+        assertEquals(3, s.nextPrime());
+    }
+
+    @Test
+    void testLookahead() {
+        // il primo cercato da hasNextPrime() resta valido anche se nel
+        // frattempo isPrime() marca un'altra finestra
+        SegmentedSieve s = new SegmentedSieve(10_000_000);
+        assertEquals(2, s.nextPrime());
+        assertTrue(s.hasNextPrime());
+        assertTrue(s.hasNextPrime());
+        assertTrue(s.isPrime(9_999_991));
+        assertEquals(3, s.nextPrime());
+        assertTrue(s.hasNextPrime());
+        s.restartPrimeIteration();
+        assertEquals(2, s.nextPrime());
+    }
+
+    @Test
+    void testLargeCapacity() {
+        long capacity = 100_000_000_000_000L;
+        SegmentedSieve s = new SegmentedSieve(capacity);
+        // 10^14 - 27 è il più grande primo minore di 10^14
+        assertTrue(s.isPrime(99_999_999_999_973L));
+        assertFalse(s.isPrime(99_999_999_999_969L));
+        assertFalse(s.isPrime(capacity));
+        assertTrue(s.isPrime(1_000_000_007L));
+        assertFalse(s.isPrime(9_999_991L * 9_999_973L));
+    }
+
+    @Test
+    void testLastPrimeBeforeCapacity() {
+        SegmentedSieve s = new SegmentedSieve(97);
+        long last = 0;
+        while (s.hasNextPrime()) last = s.nextPrime();
+        assertEquals(97, last);
+    }
+}
@@ -1,5 +1,7 @@
 package it.unicam.cs.asdl2223.mp1;
 
+import java.util.HashMap;
+
 /**
  * Un oggetto di questa classe rappresenta una mensola su cui possono essere
  * appoggiati degli oggetti. Tali oggetti possono essere di diverso tipo, ma
@@ -50,6 +52,14 @@ public class Shelf {
      */
     private ShelfItem[] items;
 
+    /*
+     * indice degli oggetti poggiati sulla mensola, che associa ogni oggetto a
+     * sé stesso. Usa hashCode ed equals degli oggetti, per cui il controllo
+     * dei duplicati e la ricerca costano O(1) invece di scorrere l'array,
+     * che resta il solo a tenere l'ordine di inserimento.
+     */
+    private final HashMap<ShelfItem, ShelfItem> index;
+
     /*
      * variabile che indica il numero corrente di caselle nell'array che sono
      * occupate
@@ -87,6 +97,7 @@ public class Shelf {
         else throw new IllegalArgumentException("Il valore è negativo.");
 
         this.items = new ShelfItem[INITIAL_SIZE];
+        this.index = new HashMap<>();
         this.numberOfItems = 0;
         this.currentSurface = 0;
         this.currentWeight = 0;
@@ -118,21 +129,16 @@ public class Shelf {
                 || i.getLength() > this.maxLength || i.getWidth() > this.maxWidth) {
             throw new IllegalArgumentException("Superi almeno uno dei valori massimi consentiti per questa mensola.");
         }
-        if (items[items.length - 1] instanceof Book || items[items.length - 1] instanceof RoundLamp) {
+        if (numberOfItems == items.length) {
             this.newItemsDimensions();
         }
-        for (int j = 0; j < items.length; j++) {
-            //scorro finché non trovo un item uguale
-            //se non lo trovo, visto che sto salvando sequenzialmente, salvo l'item alla prima posizione nulla disponibile
-            if (items[j] == null) {
-                items[j] = i;
-                break;
-            }
-            if (items[j].equals(i)) {
-                return false;
-            }
+        // l'indice trova un eventuale oggetto uguale senza scorrere l'array;
+        // se non c'è, visto che salvo sequenzialmente, l'oggetto va nella
+        // prima posizione libera
+        if (index.putIfAbsent(i, i) != null) {
+            return false;
         }
-
+        items[numberOfItems] = i;
         this.numberOfItems++;
         this.currentWeight = this.currentWeight + i.getWeight();
         this.currentSurface = this.currentSurface + i.getOccupiedSurface();
@@ -140,8 +146,8 @@ public class Shelf {
     }
 
     /**
-     * Cerca se è presente un oggetto sulla mensola. La ricerca utilizza il
-     * metodo equals della classe dell'oggetto.
+     * Cerca se è presente un oggetto sulla mensola. La ricerca utilizza i
+     * metodi hashCode ed equals della classe dell'oggetto.
      *
      * @param i un oggetto per cercare sulla mensola un oggetto uguale a i
      * @return null se sulla mensola non c'è nessun oggetto uguale a i,
@@ -153,12 +159,7 @@ public class Shelf {
         if (i == null) {
             throw new NullPointerException("L'oggetto passato è nullo.");
         }
-        for (ShelfItem item : items) {
-            if (!(item == null) && item.equals(i)) {
-                return item;
-            }
-        }
-        return null;
+        return index.get(i);
     }
 
     /**
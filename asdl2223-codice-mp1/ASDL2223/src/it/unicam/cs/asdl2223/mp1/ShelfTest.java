@@ -139,6 +139,27 @@ class ShelfTest {
         assertTrue(shelf.getItems()[5].equals(b3));
     }
 
+    @Test
+    final void testAddManyItems() {
+        Shelf shelf = new Shelf(27, 20, 1e9, 1e9);
+        int n = 20000;
+        for (int k = 0; k < n; k++) {
+            assertTrue(shelf.addItem(new Book("A", "T" + k, 2000, "E", "ISBN" + k, 20, 10, 100)));
+        }
+        // un libro con lo stesso ISBN è un duplicato anche se il resto cambia
+        assertFalse(shelf.addItem(new Book("B", "Altro", 1999, "F", "ISBN" + (n / 2), 10, 5, 50)));
+        assertEquals(n, shelf.getNumberOfItems());
+        assertEquals(n * 100.0, shelf.getCurrentTotalWeight(), EPSILON);
+        // l'ordine dell'array è quello di inserimento
+        for (int k = 0; k < n; k++) {
+            assertEquals("T" + k, ((Book) shelf.getItems()[k]).getTitle());
+        }
+        assertNull(shelf.getItems()[n]);
+        ShelfItem found = shelf.search(new Book("B", "Altro", 1999, "F", "ISBN123", 10, 5, 50));
+        assertEquals("T123", ((Book) found).getTitle());
+        assertNull(shelf.search(new Book("A", "T", 2000, "E", "ISBN" + n, 20, 10, 100)));
+    }
+
     @Test
     final void testSearch1() {
         Shelf shelf = new Shelf(27, 20, 2508, 10000);
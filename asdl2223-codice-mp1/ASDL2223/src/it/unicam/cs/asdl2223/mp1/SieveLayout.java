@@ -0,0 +1,218 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+
+/**
+ * La disposizione della memoria a bit di un crivello di Eratostene, cioè quali
+ * numeri hanno un bit e in quale posizione. Si usa una ruota: vengono
+ * rappresentati solo i numeri primi con il modulo della ruota (i "candidati"),
+ * perché tutti gli altri hanno un fattore in comune con il modulo e sono
+ * composti, tranne i primi che dividono il modulo, che vengono trattati a
+ * parte. Il bit di un candidato si calcola in tempo costante dal quoziente e
+ * dal resto della divisione per il modulo.
+ * <p>
+ * Tutte le disposizioni offrono le stesse operazioni, per cui il crivello può
+ * essere costruito con l'una o con l'altra senza cambiare il modo in cui viene
+ * usato.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public enum SieveLayout {
+
+    /**
+     * Un bit per ogni numero dispari, cioè una ruota di modulo 2: il bit i
+     * corrisponde al numero {@code 2 * i + 1}. Occupa un bit ogni due numeri.
+     */
+    ODD(1, 2) {
+        @Override
+        long bitIndex(long n) {
+            return n >>> 1;
+        }
+
+        @Override
+        int value(int bit) {
+            return 2 * bit + 1;
+        }
+
+        @Override
+        boolean isCandidate(int n) {
+            return (n & 1) != 0;
+        }
+
+        @Override
+        void sieve(long[] words, int firstBit, int bits, int[] basePrimes) {
+            SegmentSieve.sieve(2L * firstBit + 1, bits, basePrimes, words, firstBit >>> 6);
+        }
+    },
+
+    /**
+     * Un bit per ogni numero primo con 2 * 3 * 5 * 7 = 210: in ogni giro della
+     * ruota ci sono 48 candidati, per cui la memoria è il 46% di quella di
+     * {@link #ODD} e la marcatura salta tutti i multipli di 3, 5 e 7.
+     */
+    WHEEL_210(2, 2, 3, 5, 7) {
+        @Override
+        long bitIndex(long n) {
+            return 48 * (n / 210) + BELOW[(int) (n % 210)];
+        }
+
+        @Override
+        int value(int bit) {
+            return 210 * (bit / 48) + RESIDUES[bit % 48];
+        }
+
+        @Override
+        boolean isCandidate(int n) {
+            int r = n % 210;
+            return BELOW[r + 1] != BELOW[r];
+        }
+
+        @Override
+        void sieve(long[] words, int firstBit, int bits, int[] basePrimes) {
+            int firstWord = firstBit >>> 6;
+            int lastWord = (firstBit + bits - 1) >>> 6;
+            Arrays.fill(words, firstWord, lastWord + 1, -1L);
+            int tail = (firstBit + bits) & 63;
+            if (tail != 0) words[lastWord] = (1L << tail) - 1;
+            // 1 non è primo
+            if (firstBit == 0) words[0] &= ~1L;
+
+            long lo = value(firstBit);
+            long hi = value(firstBit + bits - 1);
+            long end = (long) firstBit + bits;
+            for (int bp : basePrimes) {
+                long p = Integer.toUnsignedLong(bp);
+                // 3, 5 e 7 non hanno candidati tra i loro multipli
+                if (p < 11) continue;
+                if (p > hi / p) break;
+                // i multipli p * m con m candidato e m nella stessa classe di
+                // resto modulo 210 distano 48 * p bit l'uno dall'altro: per
+                // ognuna delle 48 classi cerco il primo multiplo nel segmento
+                // che non sia minore di p * p
+                long m0 = Math.max(p, (lo + p - 1) / p);
+                long step = 48 * p;
+                for (int r : RESIDUES) {
+                    long m = m0 + Math.floorMod(r - m0, 210);
+                    for (long i = bitIndex(p * m); i < end; i += step) {
+                        words[(int) (i >>> 6)] &= ~(1L << i);
+                    }
+                }
+            }
+        }
+    };
+
+    /*
+     * I resti modulo 210 primi con 210, in ordine crescente
+     */
+    private static final int[] RESIDUES = new int[48];
+
+    /*
+     * La posizione r contiene il numero di resti primi con 210 minori di r,
+     * per r da 0 a 210 compreso
+     */
+    private static final int[] BELOW = new int[211];
+
+    static {
+        int count = 0;
+        for (int r = 0; r < 210; r++) {
+            BELOW[r] = count;
+            if (r % 2 != 0 && r % 3 != 0 && r % 5 != 0 && r % 7 != 0) RESIDUES[count++] = r;
+        }
+        BELOW[210] = count;
+    }
+
+    /*
+     * Il codice della disposizione nelle istantanee su file
+     */
+    final int code;
+
+    /*
+     * I primi che dividono il modulo della ruota, in ordine crescente. Non
+     * hanno un bit e vengono trattati a parte. L'array non va modificato.
+     */
+    final int[] smallPrimes;
+
+    SieveLayout(int code, int... smallPrimes) {
+        this.code = code;
+        this.smallPrimes = smallPrimes;
+    }
+
+    /**
+     * Conta i candidati minori di n, cioè restituisce il bit di n se n è un
+     * candidato e il bit del primo candidato maggiore di n altrimenti.
+     *
+     * @param n un numero non negativo
+     * @return il numero di candidati minori di n
+     */
+    abstract long bitIndex(long n);
+
+    /**
+     * Restituisce il candidato corrispondente a un bit.
+     *
+     * @param bit la posizione del bit
+     * @return il numero rappresentato dal bit
+     */
+    abstract int value(int bit);
+
+    /**
+     * Controlla se un numero positivo ha un bit in questa disposizione.
+     *
+     * @param n il numero da controllare
+     * @return true se n è primo con il modulo della ruota
+     */
+    abstract boolean isCandidate(int n);
+
+    /**
+     * Marca i bit da firstBit (incluso) a firstBit + bits (escluso): alla fine
+     * ognuno è a 1 se e solo se il candidato corrispondente è primo. firstBit
+     * deve essere multiplo di 64 e vengono scritte solo le parole del segmento;
+     * i bit dell'ultima parola che seguono il segmento vengono lasciati a 0.
+     *
+     * @param words      la memoria a bit del crivello
+     * @param firstBit   il primo bit del segmento
+     * @param bits       il numero di bit del segmento
+     * @param basePrimes i primi dispari almeno fino alla radice dell'ultimo
+     *                   candidato del segmento, come interi senza segno
+     */
+    abstract void sieve(long[] words, int firstBit, int bits, int[] basePrimes);
+
+    /*
+     * Controlla se n è uno dei primi che dividono il modulo della ruota
+     */
+    boolean isSmallPrime(int n) {
+        for (int p : smallPrimes) {
+            if (p == n) return true;
+        }
+        return false;
+    }
+
+    /*
+     * Il più piccolo primo che divide il modulo e non è minore di from, -1 se
+     * sono tutti minori di from
+     */
+    int nextSmallPrime(long from) {
+        for (int p : smallPrimes) {
+            if (p >= from) return p;
+        }
+        return -1;
+    }
+
+    /*
+     * Quanti primi che dividono il modulo sono minori o uguali a n
+     */
+    int smallPrimeCount(long n) {
+        int count = 0;
+        while (count < smallPrimes.length && smallPrimes[count] <= n) count++;
+        return count;
+    }
+
+    /*
+     * La disposizione con il codice dato, null se il codice non esiste
+     */
+    static SieveLayout forCode(int code) {
+        for (SieveLayout layout : values()) {
+            if (layout.code == code) return layout;
+        }
+        return null;
+    }
+}
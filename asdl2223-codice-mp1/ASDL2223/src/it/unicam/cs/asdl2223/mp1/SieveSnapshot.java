@@ -0,0 +1,207 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Un'istantanea su file di un crivello di Eratostene già costruito, che può
+ * essere interrogata direttamente sul file mappato in memoria senza rifare il
+ * crivello. All'avvio il costo diventa quello di una mappatura delle pagine
+ * del file, e più JVM sullo stesso host che mappano lo stesso file ne
+ * condividono le pagine nella cache del sistema operativo.
+ * <p>
+ * Il file è formato da un'intestazione di {@value #HEADER_BYTES} byte seguita
+ * dalle parole della memoria a bit del crivello, tutte in little-endian:
+ * <ul>
+ * <li>4 byte: il numero magico {@code 0x45524154} ("ERAT")</li>
+ * <li>4 byte: la versione del formato, {@value #VERSION}</li>
+ * <li>4 byte: la disposizione dei bit, 1 per {@link SieveLayout#ODD} e 2 per
+ * {@link SieveLayout#WHEEL_210}</li>
+ * <li>4 byte: la capacità del crivello</li>
+ * <li>4 byte: il numero di parole da 64 bit che seguono</li>
+ * <li>12 byte: riservati, a 0</li>
+ * </ul>
+ * Un'istantanea viene solo letta, per cui può essere interrogata da più thread
+ * contemporaneamente.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class SieveSnapshot {
+
+    /*
+     * Dimensione dell'intestazione, multipla di 8 perché le parole siano
+     * allineate
+     */
+    private static final int HEADER_BYTES = 32;
+
+    private static final int MAGIC = 0x45524154;
+
+    private static final int VERSION = 1;
+
+    /*
+     * Il contenuto del file mappato in sola lettura
+     */
+    private final MappedByteBuffer buffer;
+
+    /*
+     * Capacità del crivello salvato
+     */
+    private final int capacity;
+
+    /*
+     * Disposizione dei bit del crivello salvato
+     */
+    private final SieveLayout layout;
+
+    // numero di bit significativi, uno per ogni candidato fino alla capacità
+    private final int bits;
+
+    private SieveSnapshot(MappedByteBuffer buffer, int capacity, SieveLayout layout) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.layout = layout;
+        this.bits = (int) layout.bitIndex(capacity + 1L);
+    }
+
+    /**
+     * Salva su file la memoria a bit di un crivello. Se il file esiste già
+     * viene sovrascritto.
+     *
+     * @param crivello il crivello da salvare
+     * @param file     il file in cui scrivere l'istantanea
+     * @throws IOException          se la scrittura del file non riesce
+     * @throws NullPointerException se il crivello o il file sono null
+     */
+    public static void write(CrivelloDiEratostene crivello, Path file) throws IOException {
+        if (crivello == null || file == null) {
+            throw new NullPointerException("Il crivello o il file passati sono nulli.");
+        }
+        PackedSieve bits = crivello.bits();
+        bits.materialise();
+        long[] words = bits.words;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer out = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(VERSION).putInt(crivello.getLayout().code)
+                    .putInt(crivello.getCapacity()).putInt(words.length);
+            out.position(HEADER_BYTES);
+            for (long word : words) {
+                if (!out.hasRemaining()) flush(out, channel);
+                out.putLong(word);
+            }
+            flush(out, channel);
+        }
+    }
+
+    /**
+     * Mappa in sola lettura un file scritto con
+     * {@link #write(CrivelloDiEratostene, Path)}. Il contenuto non viene
+     * copiato: le interrogazioni leggono direttamente le pagine del file.
+     *
+     * @param file il file da mappare
+     * @return l'istantanea contenuta nel file
+     * @throws IOException          se la lettura non riesce o se il file non
+     *                              contiene un'istantanea valida
+     * @throws NullPointerException se il file passato è null
+     */
+    public static SieveSnapshot map(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("Il file passato è nullo.");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Il file non contiene un'istantanea valida di un crivello.");
+            }
+            // la mappatura resta valida anche dopo la chiusura del canale
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            SieveLayout layout = SieveLayout.forCode(buffer.getInt(8));
+            int capacity = buffer.getInt(12);
+            int words = buffer.getInt(16);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || layout == null || capacity < 2
+                    || words != (layout.bitIndex(capacity + 1L) + 63) >>> 6
+                    || size != HEADER_BYTES + 8L * words) {
+                throw new IOException("Il file non contiene un'istantanea valida di un crivello.");
+            }
+            return new SieveSnapshot(buffer, capacity, layout);
+        }
+    }
+
+    /**
+     * @return la capacità del crivello salvato
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return la disposizione dei bit del crivello salvato
+     */
+    public SieveLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Controlla se un numero è primo leggendo il file mappato. Può rispondere
+     * solo se il numero passato è minore o uguale alla capacità del crivello
+     * salvato.
+     *
+     * @param n il numero da controllare
+     * @return true se il numero passato è primo, false altrimenti
+     * @throws IllegalArgumentException se il numero passato {@code n}
+     *                                  eccede la capacità del crivello o se
+     *                                  è un numero minore di 2.
+     */
+    public boolean isPrime(int n) {
+        if (n > capacity || n < 2) {
+            throw new IllegalArgumentException("il numero passato eccede la capacità di questo crivello o è un numero minore di 2.");
+        }
+        if (!layout.isCandidate(n)) return layout.isSmallPrime(n);
+        int i = (int) layout.bitIndex(n);
+        return (word(i >>> 6) & (1L << i)) != 0;
+    }
+
+    /**
+     * Restituisce il più piccolo numero primo maggiore o uguale a n e minore o
+     * uguale alla capacità, scorrendo il file una parola alla volta.
+     *
+     * @param n il numero da cui iniziare la ricerca
+     * @return il primo trovato, -1 se non ci sono altri primi fino alla
+     * capacità
+     */
+    public int nextPrime(int n) {
+        if (n > capacity) return -1;
+        int small = layout.nextSmallPrime(n);
+        if (small > 0) return small <= capacity ? small : -1;
+        int i = (int) layout.bitIndex(n);
+        if (i >= bits) return -1;
+        int w = i >>> 6;
+        int lastWord = (bits - 1) >>> 6;
+        long word = word(w) & (-1L << i);
+        while (word == 0) {
+            if (++w > lastWord) return -1;
+            word = word(w);
+        }
+        i = (w << 6) + Long.numberOfTrailingZeros(word);
+        return i < bits ? layout.value(i) : -1;
+    }
+
+    /*
+     * Legge la parola di posizione w della memoria a bit
+     */
+    private long word(int w) {
+        return buffer.getLong(HEADER_BYTES + 8 * w);
+    }
+
+    private static void flush(ByteBuffer out, FileChannel channel) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) channel.write(out);
+        out.clear();
+    }
+}
@@ -0,0 +1,74 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+class SieveSnapshotTest {
+
+    /*
+     * Un file temporaneo cancellato all'uscita dalla JVM: un file mappato non
+     * può essere cancellato su tutti i sistemi finché il buffer non viene
+     * raccolto, per cui i test non lo cancellano subito
+     */
+    private static Path tempFile() throws IOException {
+        Path file = Files.createTempFile("crivello", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Test
+    void testWriteAndMap() throws IOException {
+        int capacity = 1_000_003;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity);
+        Path file = tempFile();
+        SieveSnapshot.write(c, file);
+        SieveSnapshot s = SieveSnapshot.map(file);
+        assertEquals(capacity, s.getCapacity());
+        for (int n = 2; n <= capacity; n++) {
+            assertEquals(c.isPrime(n), s.isPrime(n));
+        }
+        int p = 1;
+        while (c.hasNextPrime()) {
+            int next = c.nextPrime();
+            assertEquals(next, s.nextPrime(p + 1));
+            p = next;
+        }
+        assertEquals(-1, s.nextPrime(p + 1));
+        assertThrows(IllegalArgumentException.class, () -> s.isPrime(capacity + 1));
+    }
+
+    @Test
+    void testWheelLayout() throws IOException {
+        int capacity = 2_000_029;
+        CrivelloDiEratostene c = new CrivelloDiEratostene(capacity, SieveLayout.WHEEL_210);
+        Path file = tempFile();
+        SieveSnapshot.write(c, file);
+        SieveSnapshot s = SieveSnapshot.map(file);
+        assertEquals(SieveLayout.WHEEL_210, s.getLayout());
+        for (int n = 2; n <= capacity; n++) {
+            assertEquals(c.isPrime(n), s.isPrime(n));
+        }
+        int p = 1;
+        while (c.hasNextPrime()) {
+            int next = c.nextPrime();
+            assertEquals(next, s.nextPrime(p + 1));
+            p = next;
+        }
+        assertEquals(-1, s.nextPrime(p + 1));
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        Path file = tempFile();
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertThrows(IOException.class, () -> SieveSnapshot.map(file));
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> SieveSnapshot.map(file));
+        assertThrows(NullPointerException.class, () -> SieveSnapshot.write(null, file));
+    }
+}
@@ -0,0 +1,103 @@
+package it.unicam.cs.asdl2223.mp1;
+
+import java.util.Arrays;
+
+/**
+ * Una tabella che contiene il più piccolo fattore primo di ogni numero naturale
+ * da 2 fino a un limite assegnato. Con la tabella un numero n viene fattorizzato
+ * con O(log n) divisioni, perché ogni passo divide n per il suo più piccolo
+ * fattore primo letto dalla tabella, senza costruire alcun crivello.
+ * <p>
+ * La tabella viene costruita con il crivello lineare di Eulero, in cui ogni
+ * numero composto viene marcato una sola volta, dal suo più piccolo fattore
+ * primo. Vengono memorizzati solo i numeri dispari, perché il fattore 2 si
+ * riconosce direttamente dai bit del numero. Il più piccolo fattore primo di
+ * un numero composto n non supera la radice di n, che per un {@code int} sta
+ * in 16 bit, per cui ogni posizione occupa un {@code char}: 0 se il numero è
+ * primo, altrimenti il suo più piccolo fattore primo. Una tabella fino a 10^8
+ * occupa quindi 100 MB.
+ * <p>
+ * Dopo la costruzione la tabella viene solo letta, per cui può essere
+ * condivisa tra più thread.
+ *
+ * @author Christian Bonsignore christian.bonsignore@studenti.unicam.it
+ */
+public class SmallestPrimeFactorTable {
+
+    /*
+     * La posizione i corrisponde al numero dispari 2 * i + 1 e contiene 0 se il
+     * numero è primo, altrimenti il suo più piccolo fattore primo.
+     */
+    private final char[] spf;
+
+    /*
+     * Il numero più grande presente nella tabella, immutabile
+     */
+    private final int bound;
+
+    /**
+     * Costruisce la tabella dei più piccoli fattori primi fino al limite dato.
+     *
+     * @param bound il numero più grande della tabella, almeno 2
+     * @throws IllegalArgumentException se il limite è minore di 2
+     */
+    public SmallestPrimeFactorTable(int bound) {
+        if (bound < 2) {
+            throw new IllegalArgumentException("Il limite della tabella deve essere almeno 2.");
+        }
+        this.bound = bound;
+        this.spf = new char[(bound - 1) / 2 + 1];
+
+        // servono come moltiplicatori solo i primi dispari fino a bound / 3
+        int limit = bound / 3;
+        int[] primes = new int[16];
+        int count = 0;
+        for (int i = 3; i <= limit; i += 2) {
+            int lp = spf[i >>> 1];
+            if (lp == 0) {
+                if (count == primes.length) primes = Arrays.copyOf(primes, count * 2);
+                primes[count++] = i;
+                lp = i;
+            }
+            // marco i * p per ogni primo p che non supera il più piccolo
+            // fattore primo di i: p è allora il più piccolo fattore di i * p
+            for (int j = 0; j < count; j++) {
+                int p = primes[j];
+                long m = (long) i * p;
+                if (p > lp || m > bound) break;
+                spf[(int) (m >>> 1)] = (char) p;
+            }
+        }
+    }
+
+    /**
+     * @return il numero più grande presente nella tabella
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * Restituisce il più piccolo fattore primo di un numero.
+     *
+     * @param n il numero, compreso tra 2 e il limite della tabella
+     * @return il più piccolo fattore primo di n, n stesso se n è primo
+     * @throws IllegalArgumentException se n è minore di 2 o eccede il limite
+     *                                  della tabella
+     */
+    public int smallestPrimeFactor(int n) {
+        if (n < 2 || n > bound) {
+            throw new IllegalArgumentException("Il numero passato eccede il limite della tabella o è minore di 2.");
+        }
+        return lookup(n);
+    }
+
+    /*
+     * Come smallestPrimeFactor(int) ma senza controllare i limiti.
+     */
+    int lookup(int n) {
+        if ((n & 1) == 0) return 2;
+        int p = spf[n >>> 1];
+        return p == 0 ? n : p;
+    }
+}